@@ -26,8 +26,7 @@ public class BoardStateDTO
         this.turn = game.getCurrentTurn().toString();
         this.allLegalMoves = game.getBoard().getAllPieceMovesAsMap();
         this.check = game.getBoard().isInCheck(game.getCurrentTurn());
-        var moves = game.getMoveHistory();
-        this.lastMove = moves.isEmpty() ? null : moves.getLast();
+        this.lastMove = game.getLastMoveSAN();
         this.boardFEN = game.getFEN();
     }
 }
@@ -0,0 +1,141 @@
+package project.chess.datastructure;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * An array-backed binary min-heap.
+ *
+ * @details
+ * - The smallest element by the comparator is at the root, so {@link #peek} is O(1) and {@link #add} and
+ *   {@link #poll} are O(log n)
+ * - For a max-heap, pass the reversed comparator
+ *
+ * @param <T> the type of elements stored in the heap
+ */
+
+public class BinaryHeap<T>
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Comparator<? super T> comparator;
+    private Object[] elements;
+    private int size = 0;
+
+    public BinaryHeap(Comparator<? super T> comparator) { this(comparator, DEFAULT_CAPACITY); }
+
+    /**
+     * @param capacity The number of elements to make room for up front.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public BinaryHeap(Comparator<? super T> comparator, int capacity)
+    {
+        if (capacity < 0) throw new IllegalArgumentException("Capacity cannot be negative");
+        this.comparator = comparator;
+        this.elements = new Object[capacity];
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear()
+    {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    public void add(T value)
+    {
+        if (size == elements.length) elements = Arrays.copyOf(elements, Math.max(DEFAULT_CAPACITY, elements.length * 2));
+
+        elements[size] = value;
+        siftUp(size++);
+    }
+
+    /**
+     * Returns the smallest element without removing it.
+     * @throws IllegalStateException If the heap is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T peek()
+    {
+        if (size == 0) throw new IllegalStateException("Heap is empty");
+        return (T) elements[0];
+    }
+
+    /**
+     * Removes and returns the smallest element.
+     * @throws IllegalStateException If the heap is empty.
+     */
+    public T poll()
+    {
+        T smallest = peek();
+
+        elements[0] = elements[--size];
+        elements[size] = null;
+        if (size > 0) siftDown(0);
+
+        return smallest;
+    }
+
+    /**
+     * Replaces the smallest element with a new one, in one O(log n) step instead of a poll and an add.
+     * @return The element that was removed.
+     * @throws IllegalStateException If the heap is empty.
+     */
+    public T replaceTop(T value)
+    {
+        T smallest = peek();
+
+        elements[0] = value;
+        siftDown(0);
+
+        return smallest;
+    }
+
+    /**
+     * Copies the elements into an array, in heap order rather than sorted order.
+     */
+    @SuppressWarnings("unchecked")
+    public T[] asArray() { return (T[]) Arrays.copyOf(elements, size); }
+
+    @SuppressWarnings("unchecked")
+    private int compare(int a, int b) { return comparator.compare((T) elements[a], (T) elements[b]); }
+
+    private void siftUp(int index)
+    {
+        while (index > 0)
+        {
+            int parent = (index - 1) >>> 1;
+            if (compare(index, parent) >= 0) break;
+
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index)
+    {
+        while (true)
+        {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+
+            if (left < size && compare(left, smallest) < 0) smallest = left;
+            if (right < size && compare(right, smallest) < 0) smallest = right;
+            if (smallest == index) break;
+
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b)
+    {
+        Object temp = elements[a];
+        elements[a] = elements[b];
+        elements[b] = temp;
+    }
+}
@@ -0,0 +1,210 @@
+package project.chess.datastructure;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A generic array-backed list, with the same operations as {@link LinkedList}.
+ *
+ * @details
+ * - Elements sit in one contiguous array, so indexed access is O(1) and iteration does not chase pointers
+ * - Appending is amortised O(1): the array doubles when full
+ * - Inserting or removing anywhere but the end shifts the later elements, so it is O(n)
+ *
+ * @param <T> the type of elements stored in the list
+ */
+
+public class DynamicArray<T> implements Iterable<T>
+{
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private Object[] elements;
+    private int size;
+
+    public DynamicArray() { this(DEFAULT_CAPACITY); }
+
+    /**
+     * @param capacity The number of elements to make room for up front.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public DynamicArray(int capacity)
+    {
+        if (capacity < 0) throw new IllegalArgumentException("Capacity cannot be negative");
+        this.elements = new Object[capacity];
+        this.size = 0;
+    }
+
+    public boolean isEmpty() { return this.size == 0; }
+
+    public int size() { return size; }
+
+    /**
+     * Removes all elements, keeping the current capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     * @param value the value to append
+     */
+    public void append(T value)
+    {
+        if (size == elements.length) grow();
+        elements[size++] = value;
+    }
+
+    /**
+     * Returns the element at the specified index.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index)
+    {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        return (T) elements[index];
+    }
+
+    /**
+     * Replaces the element at the specified index.
+     * @return The element previously at that index.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    @SuppressWarnings("unchecked")
+    public T set(int index, T value)
+    {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+
+        T previous = (T) elements[index];
+        elements[index] = value;
+        return previous;
+    }
+
+    /**
+     * Inserts a value at the specified index, shifting later elements along.
+     * @param index The position to insert at; {@code size()} appends.
+     * @throws IndexOutOfBoundsException If index is out of range.
+     */
+    public void insert(T value, int index)
+    {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException();
+
+        if (size == elements.length) grow();
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = value;
+        size++;
+    }
+
+    /**
+     * Removes the first occurrence of the specified value.
+     * @return True if the value was found and removed, false otherwise.
+     */
+    public boolean remove(T value)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (elements[i].equals(value))
+            {
+                pop(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes and returns the first element, like {@link LinkedList#pop()}. This shifts every other element,
+     * see {@link #removeLast()} for the O(1) end.
+     * @throws IllegalStateException If the list is empty.
+     */
+    public T pop()
+    {
+        if (size == 0) throw new IllegalStateException("Cannot pop from empty list");
+        return pop(0);
+    }
+
+    /**
+     * Removes and returns the element at the specified index.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    @SuppressWarnings("unchecked")
+    public T pop(int index)
+    {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+
+        T value = (T) elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        elements[--size] = null;
+        return value;
+    }
+
+    /**
+     * Removes and returns the last element.
+     * @throws IllegalStateException If the list is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public T removeLast()
+    {
+        if (size == 0) throw new IllegalStateException("Cannot remove from empty list");
+
+        T value = (T) elements[--size];
+        elements[size] = null;
+        return value;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified value.
+     * @throws IllegalArgumentException If value is not found.
+     */
+    public int index(T value)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (elements[i].equals(value)) return i;
+        }
+        throw new IllegalArgumentException("Value not found");
+    }
+
+    /**
+     * Converts the list to an array.
+     * @return an array containing all elements in order
+     */
+    @SuppressWarnings("unchecked")
+    public T[] asArray() { return (T[]) Arrays.copyOf(elements, size); }
+
+    /**
+     * Returns this list, for code written against {@link LinkedList#asIterable()}.
+     */
+    public Iterable<T> asIterable() { return this; }
+
+    @Override
+    public @NotNull Iterator<T> iterator()
+    {
+        return new Iterator<T>()
+        {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() { return index < size; }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next()
+            {
+                if (index >= size) throw new NoSuchElementException();
+                return (T) elements[index++];
+            }
+        };
+    }
+
+    private void grow()
+    {
+        elements = Arrays.copyOf(elements, Math.max(DEFAULT_CAPACITY, elements.length * 2));
+    }
+}
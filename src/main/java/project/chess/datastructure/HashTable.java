@@ -161,24 +161,40 @@ public class HashTable<K, V> implements IHashTable<K, V>, Iterable<Element<K, V>
 
         int originalHash = hashedKey;
 
-        while (table[hashedKey] != null && !table[hashedKey].Deleted())
+        // A deleted slot can be reused, but the key may still be further along the chain, so keep searching
+        int firstDeleted = -1;
+
+        while (table[hashedKey] != null)
         {
-            // Check if the key has already been added
-            if (key.equals(table[hashedKey].Key()))
+            if (table[hashedKey].Deleted())
+            {
+                if (firstDeleted < 0) firstDeleted = hashedKey;
+            }
+            else if (key.equals(table[hashedKey].Key()))
             {
+                // Check if the key has already been added
                 throw new IllegalArgumentException("Key already added");
             }
 
             // Linear search to find the next empty slot
             hashedKey = (hashedKey + 1) % currentCapacity;
 
-            // Checks if the hashtable is full
+            // Stop if we have looped back to the start
             if (hashedKey == originalHash)
             {
-                throw new UnsupportedOperationException("Hash table is full");
+                break;
             }
         }
 
+        if (firstDeleted >= 0)
+        {
+            hashedKey = firstDeleted;
+        }
+        else if (table[hashedKey] != null)
+        {
+            throw new UnsupportedOperationException("Hash table is full");
+        }
+
         table[hashedKey] = new Element<K, V>(key, value);
         size++;
     }
@@ -236,7 +252,7 @@ public class HashTable<K, V> implements IHashTable<K, V>, Iterable<Element<K, V>
 
         while (table[hashedKey] != null)
         {
-            if (!table[hashedKey].Deleted() && table[hashedKey].Key() == key)
+            if (!table[hashedKey].Deleted() && key.equals(table[hashedKey].Key()))
             {
                 return true;
             }
@@ -0,0 +1,96 @@
+package project.chess.datastructure;
+
+import java.util.Arrays;
+
+/**
+ * An array-backed list of primitive {@code int} values, so nothing is boxed.
+ * Works like {@link DynamicArray}: amortised O(1) append and removal at the end, O(1) indexed access.
+ */
+
+public class IntDynamicArray
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] elements;
+    private int size;
+
+    public IntDynamicArray() { this(DEFAULT_CAPACITY); }
+
+    /**
+     * @param capacity The number of values to make room for up front.
+     * @throws IllegalArgumentException If the capacity is negative.
+     */
+    public IntDynamicArray(int capacity)
+    {
+        if (capacity < 0) throw new IllegalArgumentException("Capacity cannot be negative");
+        this.elements = new int[capacity];
+        this.size = 0;
+    }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public int size() { return size; }
+
+    public void clear() { size = 0; }
+
+    public void append(int value)
+    {
+        if (size == elements.length) elements = Arrays.copyOf(elements, Math.max(DEFAULT_CAPACITY, elements.length * 2));
+        elements[size++] = value;
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public int get(int index)
+    {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        return elements[index];
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public void set(int index, int value)
+    {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        elements[index] = value;
+    }
+
+    /**
+     * Removes and returns the last value.
+     * @throws IllegalStateException If the list is empty.
+     */
+    public int removeLast()
+    {
+        if (size == 0) throw new IllegalStateException("Cannot remove from empty list");
+        return elements[--size];
+    }
+
+    /**
+     * Returns the last value without removing it.
+     * @throws IllegalStateException If the list is empty.
+     */
+    public int peekLast()
+    {
+        if (size == 0) throw new IllegalStateException("List is empty");
+        return elements[size - 1];
+    }
+
+    /**
+     * Returns the index of the first occurrence of the value, or -1 if it is not in the list.
+     */
+    public int indexOf(int value)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (elements[i] == value) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Copies the values into a new array of exactly {@link #size()} elements.
+     */
+    public int[] toArray() { return Arrays.copyOf(elements, size); }
+}
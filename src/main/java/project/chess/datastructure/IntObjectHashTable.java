@@ -0,0 +1,288 @@
+package project.chess.datastructure;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * A dynamically resizing hash table with primitive {@code int} keys.
+ *
+ * @details
+ * - Keys and values are kept in parallel arrays, so no key is boxed and no entry object is allocated;
+ *   {@link #get}, {@link #put}, {@link #remove} and {@link #contains} never allocate (growing aside)
+ * - Capacity is a power of two and keys are spread with multiplicative (Fibonacci) hashing in integer
+ *   arithmetic, so the slot index is a multiply and a shift
+ * - Collisions are resolved by linear probing. Deletion shifts later entries of the probe run back instead
+ *   of leaving tombstones, so lookups never slow down after many deletions
+ * - A {@code null} value marks an empty slot, so null values cannot be stored (as in {@link HashTable})
+ * - The table grows at 75% load but never shrinks, since the engine reuses tables of a steady size
+ * - Implements {@link IHashTable} for boxed keys as well, as a drop-in replacement for {@link HashTable}
+ *
+ * @param <V> The type of mapped values.
+ */
+
+public class IntObjectHashTable<V> implements IHashTable<Integer, V>
+{
+    private static final double LOAD_FACTOR_THRESHOLD = 0.75;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int shift;
+    private int mask;
+    private int resizeThreshold;
+
+    public IntObjectHashTable() { this(INITIAL_CAPACITY); }
+
+    /**
+     * @param expectedSize The number of entries the table should hold before it has to grow.
+     */
+    public IntObjectHashTable(int expectedSize)
+    {
+        if (expectedSize < 0) throw new IllegalArgumentException("Expected size cannot be negative");
+
+        int capacity = INITIAL_CAPACITY;
+        while (capacity * LOAD_FACTOR_THRESHOLD < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Hashes the key to a slot index.
+     * @return An index within the current capacity.
+     */
+    public int hash(int key)
+    {
+        return (key * GOLDEN_RATIO) >>> shift;
+    }
+
+    /**
+     * Returns the value for a key.
+     * @return The value, or {@code null} if the key is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key)
+    {
+        for (int slot = hash(key); values[slot] != null; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == key) return (V) values[slot];
+        }
+        return null;
+    }
+
+    /**
+     * Maps the key to the value, replacing any existing value.
+     * @return The previous value, or {@code null} if the key was not in the table.
+     * @throws NullPointerException If the value is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value)
+    {
+        if (value == null) throw new NullPointerException("Value cannot be null");
+
+        int slot = hash(key);
+        for (; values[slot] != null; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == key)
+            {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) allocateAndRehash(values.length << 1);
+
+        return null;
+    }
+
+    /**
+     * Removes a key if it is present.
+     * @return The removed value, or {@code null} if the key was not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key)
+    {
+        for (int slot = hash(key); values[slot] != null; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == key)
+            {
+                V previous = (V) values[slot];
+                shiftBack(slot);
+                size--;
+                return previous;
+            }
+        }
+        return null;
+    }
+
+    public boolean contains(int key) { return get(key) != null; }
+
+    /**
+     * Returns the value for a key.
+     * @throws IllegalArgumentException If the key is not in the table.
+     */
+    public V item(int key)
+    {
+        V value = get(key);
+        if (value == null) throw new IllegalArgumentException("Key not found: " + key);
+        return value;
+    }
+
+    /**
+     * Adds a new key.
+     * @throws NullPointerException If the value is {@code null}.
+     * @throws IllegalArgumentException If the key is already in the table.
+     */
+    public void add(int key, V value)
+    {
+        if (contains(key)) throw new IllegalArgumentException("Key already added");
+        put(key, value);
+    }
+
+    /**
+     * Deletes a key.
+     * @throws IllegalArgumentException If the key is not in the table.
+     */
+    public void delete(int key)
+    {
+        if (remove(key) == null) throw new IllegalArgumentException("Key not found: " + key);
+    }
+
+    /**
+     * Removes every entry, keeping the current capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public int hash(Integer key) { return hash(key.intValue()); }
+
+    @Override
+    public V item(Integer key) { return item(key.intValue()); }
+
+    @Override
+    public void add(Integer key, V value) { add(key.intValue(), value); }
+
+    @Override
+    public void delete(Integer key) { delete(key.intValue()); }
+
+    @Override
+    public boolean contains(Integer key) { return contains(key.intValue()); }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V[] asArray()
+    {
+        V[] result = (V[]) new Object[size];
+        int index = 0;
+
+        for (Object value : values)
+        {
+            if (value != null) result[index++] = (V) value;
+        }
+
+        return result;
+    }
+
+    @Override
+    public int length() { return size; }
+
+    @Override
+    public boolean isEmpty() { return size == 0; }
+
+    public int capacity() { return values.length; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<Element<Integer, V>> iterator()
+    {
+        return new SlotIterator<>(slot -> new Element<>(keys[slot], (V) values[slot]));
+    }
+
+    @Override
+    public Iterable<Integer> keys()
+    {
+        return () -> new SlotIterator<>(slot -> keys[slot]);
+    }
+
+    /**
+     * Empties the slot and moves later entries of its probe run back, so that every entry stays reachable
+     * from its home slot without a gap in between.
+     */
+    private void shiftBack(int emptySlot)
+    {
+        int slot = emptySlot;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            if (values[slot] == null) break;
+
+            // An entry can fill the gap if its home slot is not cyclically between the gap and itself
+            int home = hash(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - emptySlot) & mask))
+            {
+                keys[emptySlot] = keys[slot];
+                values[emptySlot] = values[slot];
+                emptySlot = slot;
+            }
+        }
+        values[emptySlot] = null;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR_THRESHOLD);
+    }
+
+    private void allocateAndRehash(int capacity)
+    {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++)
+        {
+            if (oldValues[i] == null) continue;
+
+            int slot = hash(oldKeys[i]);
+            while (values[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private class SlotIterator<T> implements Iterator<T>
+    {
+        private final IntFunction<T> reader;
+        private int slot = 0;
+
+        SlotIterator(IntFunction<T> reader) { this.reader = reader; }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (slot < values.length && values[slot] == null) slot++;
+            return slot < values.length;
+        }
+
+        @Override
+        public T next()
+        {
+            // hasNext moves past the empty slots
+            if (!hasNext()) throw new NoSuchElementException();
+            return reader.apply(slot++);
+        }
+    }
+}
@@ -25,6 +25,16 @@ public class LinkedList<T>
 
     public int size() { return size; }
 
+    /**
+     * Removes all elements.
+     */
+    public void clear()
+    {
+        head = null;
+        tail = null;
+        size = 0;
+    }
+
     /**
      * Appends a value to the end of the list.
      * @param value the value to append
@@ -124,12 +134,12 @@ public class LinkedList<T>
     /**
      * Inserts a value at the specified index.
      * @param value The value to insert.
-     * @param index The position to insert at.
+     * @param index The position to insert at; {@code size()} appends.
      * @throws IndexOutOfBoundsException If index is out of range.
      */
     public void insert(T value, int index)
     {
-        if (index < 0 || index >= size) throw new IndexOutOfBoundsException();
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException();
 
         if (index == 0)
         {
@@ -139,9 +149,9 @@ public class LinkedList<T>
             head = newNode;
             if (tail == null) tail = newNode;
         }
-        else if (index == size - 1)
+        else if (index == size)
         {
-            // Insert at the tail
+            // Insert after the tail
             append(value);
             return;
         }
@@ -0,0 +1,297 @@
+package project.chess.datastructure;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * A dynamically resizing hash table from primitive {@code long} keys to {@code long} values, for uses such
+ * as counting positions by Zobrist hash.
+ *
+ * @details
+ * - Works like {@link IntObjectHashTable}: power-of-two capacity, multiplicative hashing, linear probing and
+ *   backward-shift deletion, with keys and values in parallel arrays and no allocation per operation
+ * - Occupied slots are flagged in a separate array, so every key and value is allowed, including 0
+ * - Implements {@link IHashTable} for boxed keys and values as well
+ */
+
+public class LongLongHashTable implements IHashTable<Long, Long>
+{
+    private static final double LOAD_FACTOR_THRESHOLD = 0.75;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] occupied;
+    private int size = 0;
+    private int shift;
+    private int mask;
+    private int resizeThreshold;
+
+    public LongLongHashTable() { this(INITIAL_CAPACITY); }
+
+    /**
+     * @param expectedSize The number of entries the table should hold before it has to grow.
+     */
+    public LongLongHashTable(int expectedSize)
+    {
+        if (expectedSize < 0) throw new IllegalArgumentException("Expected size cannot be negative");
+
+        int capacity = INITIAL_CAPACITY;
+        while (capacity * LOAD_FACTOR_THRESHOLD < expectedSize) capacity <<= 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Hashes the key to a slot index.
+     * @return An index within the current capacity.
+     */
+    public int hash(long key)
+    {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    /**
+     * Returns the value for a key, or the default if the key is not in the table.
+     */
+    public long get(long key, long defaultValue)
+    {
+        int slot = find(key);
+        return (slot < 0) ? defaultValue : values[slot];
+    }
+
+    /**
+     * Maps the key to the value, replacing any existing value.
+     * @return True if the key was not in the table before.
+     */
+    public boolean put(long key, long value)
+    {
+        int slot = hash(key);
+        for (; occupied[slot]; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == key)
+            {
+                values[slot] = value;
+                return false;
+            }
+        }
+
+        insertAt(slot, key, value);
+        return true;
+    }
+
+    /**
+     * Adds to the value for a key, treating a missing key as 0.
+     * @return The new value.
+     */
+    public long addTo(long key, long delta)
+    {
+        int slot = hash(key);
+        for (; occupied[slot]; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == key) return values[slot] += delta;
+        }
+
+        insertAt(slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes a key if it is present.
+     * @return True if the key was in the table.
+     */
+    public boolean remove(long key)
+    {
+        int slot = find(key);
+        if (slot < 0) return false;
+
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    public boolean contains(long key) { return find(key) >= 0; }
+
+    /**
+     * Returns the value for a key.
+     * @throws IllegalArgumentException If the key is not in the table.
+     */
+    public long item(long key)
+    {
+        int slot = find(key);
+        if (slot < 0) throw new IllegalArgumentException("Key not found: " + key);
+        return values[slot];
+    }
+
+    /**
+     * Adds a new key.
+     * @throws IllegalArgumentException If the key is already in the table.
+     */
+    public void add(long key, long value)
+    {
+        if (!put(key, value)) throw new IllegalArgumentException("Key already added");
+    }
+
+    /**
+     * Deletes a key.
+     * @throws IllegalArgumentException If the key is not in the table.
+     */
+    public void delete(long key)
+    {
+        if (!remove(key)) throw new IllegalArgumentException("Key not found: " + key);
+    }
+
+    /**
+     * Removes every entry, keeping the current capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(occupied, false);
+        size = 0;
+    }
+
+    @Override
+    public int hash(Long key) { return hash(key.longValue()); }
+
+    @Override
+    public Long item(Long key) { return item(key.longValue()); }
+
+    /**
+     * @throws NullPointerException If the value is {@code null}.
+     */
+    @Override
+    public void add(Long key, Long value) { add(key.longValue(), value.longValue()); }
+
+    @Override
+    public void delete(Long key) { delete(key.longValue()); }
+
+    @Override
+    public boolean contains(Long key) { return contains(key.longValue()); }
+
+    @Override
+    public Long[] asArray()
+    {
+        Long[] result = new Long[size];
+        int index = 0;
+
+        for (int slot = 0; slot < occupied.length; slot++)
+        {
+            if (occupied[slot]) result[index++] = values[slot];
+        }
+
+        return result;
+    }
+
+    @Override
+    public int length() { return size; }
+
+    @Override
+    public boolean isEmpty() { return size == 0; }
+
+    public int capacity() { return occupied.length; }
+
+    @Override
+    public Iterator<Element<Long, Long>> iterator()
+    {
+        return new SlotIterator<>(slot -> new Element<>(keys[slot], values[slot]));
+    }
+
+    @Override
+    public Iterable<Long> keys()
+    {
+        return () -> new SlotIterator<>(slot -> keys[slot]);
+    }
+
+    private int find(long key)
+    {
+        for (int slot = hash(key); occupied[slot]; slot = (slot + 1) & mask)
+        {
+            if (keys[slot] == key) return slot;
+        }
+        return -1;
+    }
+
+    private void insertAt(int slot, long key, long value)
+    {
+        keys[slot] = key;
+        values[slot] = value;
+        occupied[slot] = true;
+        if (++size > resizeThreshold) allocateAndRehash(occupied.length << 1);
+    }
+
+    /**
+     * Empties the slot and moves later entries of its probe run back, see {@link IntObjectHashTable}.
+     */
+    private void shiftBack(int emptySlot)
+    {
+        int slot = emptySlot;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            if (!occupied[slot]) break;
+
+            int home = hash(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - emptySlot) & mask))
+            {
+                keys[emptySlot] = keys[slot];
+                values[emptySlot] = values[slot];
+                emptySlot = slot;
+            }
+        }
+        occupied[emptySlot] = false;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new long[capacity];
+        occupied = new boolean[capacity];
+        mask = capacity - 1;
+        shift = Long.numberOfLeadingZeros(capacity) + 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR_THRESHOLD);
+    }
+
+    private void allocateAndRehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldOccupied = occupied;
+        allocate(capacity);
+
+        for (int i = 0; i < oldOccupied.length; i++)
+        {
+            if (!oldOccupied[i]) continue;
+
+            int slot = hash(oldKeys[i]);
+            while (occupied[slot]) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            occupied[slot] = true;
+        }
+    }
+
+    private class SlotIterator<T> implements Iterator<T>
+    {
+        private final IntFunction<T> reader;
+        private int slot = 0;
+
+        SlotIterator(IntFunction<T> reader) { this.reader = reader; }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (slot < occupied.length && !occupied[slot]) slot++;
+            return slot < occupied.length;
+        }
+
+        @Override
+        public T next()
+        {
+            // hasNext moves past the empty slots
+            if (!hasNext()) throw new NoSuchElementException();
+            return reader.apply(slot++);
+        }
+    }
+}
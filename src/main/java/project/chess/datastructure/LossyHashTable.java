@@ -0,0 +1,87 @@
+package project.chess.datastructure;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, lock-free table from {@code long} keys to {@code long} data, for caches shared by search
+ * threads (in the style of a chess transposition table).
+ *
+ * @details
+ * - Each slot stores the data and the key XORed with the data. A read only counts as a hit if the two
+ *   still XOR back to the key, so a slot torn by two threads writing at once reads as a miss instead of
+ *   returning another key's data. No locks are needed
+ * - Lossy: a key hashing to an occupied slot replaces it (always-replace), so memory use never grows and
+ *   stored entries can disappear. Callers must treat every miss as normal
+ * - Capacity is a power of two and keys are spread with Fibonacci hashing, so sequential keys work as well
+ *   as Zobrist hashes
+ * - An empty slot reads as key 0 with data 0, so that one entry cannot be told apart from an empty slot
+ */
+
+public class LossyHashTable
+{
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray keys;
+    private final AtomicLongArray data;
+    private final int shift;
+
+    /**
+     * @param size The number of slots, rounded up to a power of two. Each slot takes 16 bytes.
+     * @throws IllegalArgumentException If the size is not positive or too large.
+     */
+    public LossyHashTable(int size)
+    {
+        if (size <= 0) throw new IllegalArgumentException("Table size must be positive");
+        if (size > 1 << 30) throw new IllegalArgumentException("Table size cannot exceed 2^30");
+
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) capacity <<= 1;
+        // A table of one slot would need a shift of 64, which Java treats as 0
+        capacity = Math.max(capacity, 2);
+
+        keys = new AtomicLongArray(capacity);
+        data = new AtomicLongArray(capacity);
+        shift = Long.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    public int hash(long key)
+    {
+        return (int) ((key * GOLDEN_RATIO) >>> shift);
+    }
+
+    /**
+     * Looks up a key.
+     * @return The stored data, or the default if the key is not stored (or its slot was torn or replaced).
+     */
+    public long get(long key, long defaultValue)
+    {
+        int slot = hash(key);
+        long value = data.getOpaque(slot);
+
+        return ((keys.getOpaque(slot) ^ value) == key) ? value : defaultValue;
+    }
+
+    /**
+     * Stores data for a key, replacing whatever was in its slot.
+     */
+    public void put(long key, long value)
+    {
+        int slot = hash(key);
+        data.setOpaque(slot, value);
+        keys.setOpaque(slot, key ^ value);
+    }
+
+    public int capacity() { return keys.length(); }
+
+    /**
+     * Empties the table. Not safe to call while other threads are using it.
+     */
+    public void clear()
+    {
+        for (int slot = 0; slot < keys.length(); slot++)
+        {
+            keys.setOpaque(slot, 0L);
+            data.setOpaque(slot, 0L);
+        }
+    }
+}
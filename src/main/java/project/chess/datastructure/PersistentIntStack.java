@@ -0,0 +1,78 @@
+package project.chess.datastructure;
+
+/**
+ * An immutable stack of primitive {@code int} values, stored as a singly linked list whose nodes are shared.
+ *
+ * @details
+ * - {@link #push} and {@link #pop} return a new stack and leave this one unchanged, in O(1): the new stack
+ *   simply points at the old one as its tail.
+ * - Copying a stack is just copying the reference, so many stacks that grew from a common prefix (e.g. the move
+ *   histories of games cloned from one position) share that prefix instead of each holding their own copy.
+ */
+
+public final class PersistentIntStack
+{
+    private static final PersistentIntStack EMPTY = new PersistentIntStack(0, null, 0);
+
+    private final int value;
+    private final PersistentIntStack tail;
+    private final int size;
+
+    private PersistentIntStack(int value, PersistentIntStack tail, int size)
+    {
+        this.value = value;
+        this.tail = tail;
+        this.size = size;
+    }
+
+    public static PersistentIntStack empty() { return EMPTY; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public int size() { return size; }
+
+    /**
+     * Returns a stack with the value on top of this one.
+     */
+    public PersistentIntStack push(int value)
+    {
+        return new PersistentIntStack(value, this, size + 1);
+    }
+
+    /**
+     * Returns the value on top of the stack.
+     * @throws IllegalStateException If the stack is empty.
+     */
+    public int peek()
+    {
+        if (size == 0) throw new IllegalStateException("Cannot peek at empty stack");
+        return value;
+    }
+
+    /**
+     * Returns the stack below the top value.
+     * @throws IllegalStateException If the stack is empty.
+     */
+    public PersistentIntStack pop()
+    {
+        if (size == 0) throw new IllegalStateException("Cannot pop from empty stack");
+        return tail;
+    }
+
+    /**
+     * Copies the values into an array, bottom of the stack first (i.e. in the order they were pushed).
+     */
+    public int[] toArray()
+    {
+        int[] values = new int[size];
+
+        PersistentIntStack node = this;
+        for (int i = size - 1; i >= 0; i--)
+        {
+            values[i] = node.value;
+            node = node.tail;
+        }
+
+        return values;
+    }
+}
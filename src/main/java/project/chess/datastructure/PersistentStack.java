@@ -0,0 +1,80 @@
+package project.chess.datastructure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable stack stored as a singly linked list whose nodes are shared, the object counterpart of
+ * {@link PersistentIntStack}. {@link #push} and {@link #pop} return a new stack in O(1) and leave this one
+ * unchanged, so copying a stack is just copying the reference.
+ */
+
+public final class PersistentStack<T>
+{
+    private static final PersistentStack<?> EMPTY = new PersistentStack<>(null, null, 0);
+
+    private final T value;
+    private final PersistentStack<T> tail;
+    private final int size;
+
+    private PersistentStack(T value, PersistentStack<T> tail, int size)
+    {
+        this.value = value;
+        this.tail = tail;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentStack<T> empty() { return (PersistentStack<T>) EMPTY; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public int size() { return size; }
+
+    /**
+     * Returns a stack with the value on top of this one.
+     */
+    public PersistentStack<T> push(T value)
+    {
+        return new PersistentStack<>(value, this, size + 1);
+    }
+
+    /**
+     * Returns the value on top of the stack.
+     * @throws IllegalStateException If the stack is empty.
+     */
+    public T peek()
+    {
+        if (size == 0) throw new IllegalStateException("Cannot peek at empty stack");
+        return value;
+    }
+
+    /**
+     * Returns the stack below the top value.
+     * @throws IllegalStateException If the stack is empty.
+     */
+    public PersistentStack<T> pop()
+    {
+        if (size == 0) throw new IllegalStateException("Cannot pop from empty stack");
+        return tail;
+    }
+
+    /**
+     * Copies the values into a new list, bottom of the stack first (i.e. in the order they were pushed).
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> toList()
+    {
+        T[] values = (T[]) new Object[size];
+
+        PersistentStack<T> node = this;
+        for (int i = size - 1; i >= 0; i--)
+        {
+            values[i] = node.value;
+            node = node.tail;
+        }
+
+        return new ArrayList<>(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,309 @@
+package project.chess.datastructure;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * A dynamically resizing hash table using Robin Hood hashing.
+ *
+ * @details
+ * - Open addressing with linear probing, where an entry being inserted takes the slot of any entry that is
+ *   closer to its own home slot. This evens out probe lengths, so lookups can stop as soon as they reach an
+ *   entry closer to home than the key would be
+ * - Deletion shifts the rest of the probe run back one slot instead of leaving a tombstone, so repeated
+ *   add/delete churn (as on a chessboard) never lengthens probe runs
+ * - Capacity is a power of two and keys are spread with Fibonacci hashing in integer arithmetic
+ * - Grows above 85% load and shrinks below 20%. The gap between the two thresholds means a table hovering
+ *   around one size is not rehashed over and over
+ * - Keys are compared with {@code equals}, and null keys and values are not allowed (as in {@link HashTable})
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of mapped values.
+ */
+
+public class RobinHoodHashTable<K, V> implements IHashTable<K, V>
+{
+    private static final double LOAD_FACTOR_THRESHOLD = 0.85;
+    private static final double SHRINK_THRESHOLD = 0.2;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private Object[] keys;
+    private Object[] values;
+    // Distance of each entry from its home slot, plus one; 0 marks an empty slot
+    private int[] distances;
+    private int size = 0;
+    private int shift;
+    private int mask;
+
+    public RobinHoodHashTable() { allocate(INITIAL_CAPACITY); }
+
+    /**
+     * Hashes the key to its home slot.
+     * @return An index within the current capacity.
+     */
+    @Override
+    public int hash(K key)
+    {
+        return (key.hashCode() * GOLDEN_RATIO) >>> shift;
+    }
+
+    /**
+     * Returns the value found at a specific key.
+     * @throws IllegalArgumentException If the key is not found in the table.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V item(K key)
+    {
+        int slot = find(key);
+        if (slot < 0) throw new IllegalArgumentException("Key not found: " + key);
+        return (V) values[slot];
+    }
+
+    /**
+     * Adds a new item to the table, growing it if necessary.
+     * @throws NullPointerException If the value is {@code null}.
+     * @throws IllegalArgumentException If the key already exists in the table.
+     */
+    @Override
+    public void add(K key, V value)
+    {
+        if (value == null) throw new NullPointerException("Value cannot be null");
+        if (find(key) >= 0) throw new IllegalArgumentException("Key already added");
+
+        if (size + 1 > keys.length * LOAD_FACTOR_THRESHOLD) rehash(keys.length << 1);
+        insert(key, value);
+        size++;
+    }
+
+    /**
+     * Deletes the requested item from the table, shrinking it if necessary.
+     * @throws IllegalArgumentException If the key is not found in the table.
+     */
+    @Override
+    public void delete(K key)
+    {
+        int slot = find(key);
+        if (slot < 0) throw new IllegalArgumentException("Key not found: " + key);
+
+        shiftBack(slot);
+        size--;
+
+        if (size < keys.length * SHRINK_THRESHOLD && keys.length > INITIAL_CAPACITY) rehash(keys.length >> 1);
+    }
+
+    @Override
+    public boolean contains(K key) { return find(key) >= 0; }
+
+    /**
+     * Returns the value for a key, or {@code null} if the key is not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key)
+    {
+        int slot = find(key);
+        return (slot < 0) ? null : (V) values[slot];
+    }
+
+    /**
+     * Maps the key to the value, replacing any existing value.
+     * @return The previous value, or {@code null} if the key was not in the table.
+     * @throws NullPointerException If the value is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value)
+    {
+        if (value == null) throw new NullPointerException("Value cannot be null");
+
+        int slot = find(key);
+        if (slot >= 0)
+        {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+
+        if (size + 1 > keys.length * LOAD_FACTOR_THRESHOLD) rehash(keys.length << 1);
+        insert(key, value);
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes a key if it is present.
+     * @return The removed value, or {@code null} if the key was not in the table.
+     */
+    public V remove(K key)
+    {
+        V previous = get(key);
+        if (previous != null) delete(key);
+        return previous;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V[] asArray()
+    {
+        V[] result = (V[]) new Object[size];
+        int index = 0;
+
+        for (int slot = 0; slot < distances.length; slot++)
+        {
+            if (distances[slot] != 0) result[index++] = (V) values[slot];
+        }
+
+        return result;
+    }
+
+    @Override
+    public int length() { return size; }
+
+    @Override
+    public boolean isEmpty() { return size == 0; }
+
+    public int capacity() { return keys.length; }
+
+    /**
+     * Returns the longest distance of any entry from its home slot, i.e. the worst-case number of extra probes.
+     */
+    public int maxProbeLength()
+    {
+        int longest = 0;
+        for (int distance : distances) longest = Math.max(longest, distance - 1);
+        return longest;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<Element<K, V>> iterator()
+    {
+        return new SlotIterator<>(slot -> new Element<>((K) keys[slot], (V) values[slot]));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterable<K> keys()
+    {
+        return () -> new SlotIterator<>(slot -> (K) keys[slot]);
+    }
+
+    private int find(K key)
+    {
+        int slot = hash(key);
+
+        // Every entry further along the run is at least this far from home, else the key would have taken its slot
+        for (int distance = 1; distances[slot] >= distance; distance++)
+        {
+            if (key.equals(keys[slot])) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts a key that is known not to be in the table, displacing entries that are closer to home.
+     */
+    private void insert(Object key, Object value)
+    {
+        int slot = hash(keyOf(key));
+        int distance = 1;
+
+        while (distances[slot] != 0)
+        {
+            if (distances[slot] < distance)
+            {
+                // The resident is better off than the new entry, so it moves on instead
+                Object residentKey = keys[slot];
+                Object residentValue = values[slot];
+                int residentDistance = distances[slot];
+
+                keys[slot] = key;
+                values[slot] = value;
+                distances[slot] = distance;
+
+                key = residentKey;
+                value = residentValue;
+                distance = residentDistance;
+            }
+
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        distances[slot] = distance;
+    }
+
+    /**
+     * Empties the slot and moves the rest of its probe run back by one, stopping at an empty slot or an entry
+     * already in its home slot.
+     */
+    private void shiftBack(int slot)
+    {
+        int next = (slot + 1) & mask;
+        while (distances[next] > 1)
+        {
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            distances[slot] = distances[next] - 1;
+
+            slot = next;
+            next = (next + 1) & mask;
+        }
+
+        keys[slot] = null;
+        values[slot] = null;
+        distances[slot] = 0;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        distances = new int[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    private void rehash(int capacity)
+    {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldDistances = distances;
+        allocate(capacity);
+
+        for (int slot = 0; slot < oldDistances.length; slot++)
+        {
+            if (oldDistances[slot] != 0) insert(oldKeys[slot], oldValues[slot]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyOf(Object key) { return (K) key; }
+
+    private class SlotIterator<T> implements Iterator<T>
+    {
+        private final IntFunction<T> reader;
+        private int slot = 0;
+
+        SlotIterator(IntFunction<T> reader) { this.reader = reader; }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (slot < distances.length && distances[slot] == 0) slot++;
+            return slot < distances.length;
+        }
+
+        @Override
+        public T next()
+        {
+            // hasNext moves past the empty slots
+            if (!hasNext()) throw new NoSuchElementException();
+            return reader.apply(slot++);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package project.chess.datastructure;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A thread-safe hash table made of independently locked stripes.
+ *
+ * @details
+ * - Keys are split over a power-of-two number of {@link RobinHoodHashTable} stripes, each guarded by its own
+ *   lock, so threads only contend when they touch the same stripe
+ * - Every single-key operation is atomic, including the check-then-act ones ({@link #add}, {@link #putIfAbsent},
+ *   {@link #computeIfAbsent})
+ * - Whole-table views ({@link #asArray}, iteration, {@link #length}) lock one stripe at a time, so under
+ *   concurrent updates they see each stripe at a different moment rather than one snapshot of the table
+ * - For fixed-size caches that may drop entries, {@link LossyHashTable} avoids locking altogether
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of mapped values.
+ */
+
+public class StripedHashTable<K, V> implements IHashTable<K, V>
+{
+    private final RobinHoodHashTable<K, V>[] stripes;
+    private final ReentrantLock[] locks;
+    private final int stripeMask;
+
+    /**
+     * Creates a table with four stripes per available processor.
+     */
+    public StripedHashTable()
+    {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripeCount The number of independently locked stripes, rounded up to a power of two.
+     * @throws IllegalArgumentException If the count is not positive.
+     */
+    @SuppressWarnings("unchecked")
+    public StripedHashTable(int stripeCount)
+    {
+        if (stripeCount <= 0) throw new IllegalArgumentException("Stripe count must be positive");
+
+        int count = Integer.highestOneBit(stripeCount);
+        if (count < stripeCount) count <<= 1;
+
+        stripes = new RobinHoodHashTable[count];
+        locks = new ReentrantLock[count];
+        for (int i = 0; i < count; i++)
+        {
+            stripes[i] = new RobinHoodHashTable<>();
+            locks[i] = new ReentrantLock();
+        }
+        stripeMask = count - 1;
+    }
+
+    /**
+     * Returns the index of the stripe holding the key.
+     */
+    @Override
+    public int hash(K key)
+    {
+        // The stripes place keys by the top bits of the hash, so the stripe is picked from the low bits
+        int hashCode = key.hashCode();
+        return (hashCode ^ (hashCode >>> 16)) & stripeMask;
+    }
+
+    /**
+     * Returns the value found at a specific key.
+     * @throws IllegalArgumentException If the key is not found in the table.
+     */
+    @Override
+    public V item(K key)
+    {
+        V value = get(key);
+        if (value == null) throw new IllegalArgumentException("Key not found: " + key);
+        return value;
+    }
+
+    /**
+     * Adds a new key.
+     * @throws NullPointerException If the value is {@code null}.
+     * @throws IllegalArgumentException If the key already exists in the table.
+     */
+    @Override
+    public void add(K key, V value)
+    {
+        int stripe = hash(key);
+        locks[stripe].lock();
+        try
+        {
+            stripes[stripe].add(key, value);
+        }
+        finally
+        {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Deletes a key.
+     * @throws IllegalArgumentException If the key is not found in the table.
+     */
+    @Override
+    public void delete(K key)
+    {
+        int stripe = hash(key);
+        locks[stripe].lock();
+        try
+        {
+            stripes[stripe].delete(key);
+        }
+        finally
+        {
+            locks[stripe].unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(K key) { return get(key) != null; }
+
+    /**
+     * Returns the value for a key, or {@code null} if the key is not in the table.
+     */
+    public V get(K key)
+    {
+        int stripe = hash(key);
+        locks[stripe].lock();
+        try
+        {
+            return stripes[stripe].get(key);
+        }
+        finally
+        {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Maps the key to the value, replacing any existing value.
+     * @return The previous value, or {@code null} if the key was not in the table.
+     */
+    public V put(K key, V value)
+    {
+        int stripe = hash(key);
+        locks[stripe].lock();
+        try
+        {
+            return stripes[stripe].put(key, value);
+        }
+        finally
+        {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Maps the key to the value unless it is already in the table.
+     * @return The existing value, or {@code null} if the value was added.
+     */
+    public V putIfAbsent(K key, V value)
+    {
+        int stripe = hash(key);
+        locks[stripe].lock();
+        try
+        {
+            V existing = stripes[stripe].get(key);
+            if (existing == null) stripes[stripe].add(key, value);
+            return existing;
+        }
+        finally
+        {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Returns the value for a key, computing and adding it first if the key is not in the table.
+     * The function runs while the key's stripe is locked, so it must be quick and must not use this table.
+     * @throws NullPointerException If the function returns {@code null}.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function)
+    {
+        int stripe = hash(key);
+        locks[stripe].lock();
+        try
+        {
+            V value = stripes[stripe].get(key);
+            if (value == null)
+            {
+                value = function.apply(key);
+                stripes[stripe].add(key, value);
+            }
+            return value;
+        }
+        finally
+        {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Removes a key if it is present.
+     * @return The removed value, or {@code null} if the key was not in the table.
+     */
+    public V remove(K key)
+    {
+        int stripe = hash(key);
+        locks[stripe].lock();
+        try
+        {
+            return stripes[stripe].remove(key);
+        }
+        finally
+        {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * Returns the values in the table, reading one stripe at a time.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V[] asArray()
+    {
+        List<V> values = new ArrayList<>();
+        for (Element<K, V> element : snapshot()) values.add(element.Value());
+        return (V[]) values.toArray();
+    }
+
+    @Override
+    public int length()
+    {
+        int size = 0;
+        for (int stripe = 0; stripe <= stripeMask; stripe++)
+        {
+            locks[stripe].lock();
+            try
+            {
+                size += stripes[stripe].length();
+            }
+            finally
+            {
+                locks[stripe].unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() { return length() == 0; }
+
+    public int getStripeCount() { return stripeMask + 1; }
+
+    /**
+     * Iterates over a copy of the entries, taken one stripe at a time.
+     */
+    @Override
+    public Iterator<Element<K, V>> iterator() { return snapshot().iterator(); }
+
+    @Override
+    public Iterable<K> keys()
+    {
+        List<K> keys = new ArrayList<>();
+        for (Element<K, V> element : snapshot()) keys.add(element.Key());
+        return keys;
+    }
+
+    private List<Element<K, V>> snapshot()
+    {
+        List<Element<K, V>> elements = new ArrayList<>();
+        for (int stripe = 0; stripe <= stripeMask; stripe++)
+        {
+            locks[stripe].lock();
+            try
+            {
+                for (Element<K, V> element : stripes[stripe]) elements.add(element);
+            }
+            finally
+            {
+                locks[stripe].unlock();
+            }
+        }
+        return elements;
+    }
+}
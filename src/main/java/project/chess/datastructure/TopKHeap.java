@@ -0,0 +1,70 @@
+package project.chess.datastructure;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Keeps the k greatest of a stream of elements, in O(log k) per element and O(k) memory.
+ * Built on a {@link BinaryHeap} holding the current top k, with the weakest of them at the root: a new element
+ * only goes in if it beats the root, which it then replaces. Selecting the top k of n elements is O(n log k).
+ *
+ * @param <T> the type of elements offered
+ */
+
+public class TopKHeap<T>
+{
+    private final int k;
+    private final Comparator<? super T> comparator;
+    private final BinaryHeap<T> heap;
+
+    /**
+     * @param k The number of elements to keep.
+     * @param comparator Orders elements so that greater is better.
+     * @throws IllegalArgumentException If k is below 1.
+     */
+    public TopKHeap(int k, Comparator<? super T> comparator)
+    {
+        if (k < 1) throw new IllegalArgumentException("k must be at least 1");
+
+        this.k = k;
+        this.comparator = comparator;
+        this.heap = new BinaryHeap<>(comparator, Math.min(k, 64));
+    }
+
+    /**
+     * Offers an element.
+     * @return True if it is now among the top k.
+     */
+    public boolean offer(T value)
+    {
+        if (heap.size() < k)
+        {
+            heap.add(value);
+            return true;
+        }
+
+        if (comparator.compare(value, heap.peek()) <= 0) return false;
+
+        heap.replaceTop(value);
+        return true;
+    }
+
+    public int size() { return heap.size(); }
+
+    public int getK() { return k; }
+
+    public void clear() { heap.clear(); }
+
+    /**
+     * Returns the kept elements, best first. The heap itself is left unchanged.
+     */
+    public DynamicArray<T> toSortedArray()
+    {
+        T[] elements = heap.asArray();
+        Arrays.sort(elements, comparator.reversed());
+
+        DynamicArray<T> sorted = new DynamicArray<>(elements.length);
+        for (T element : elements) sorted.append(element);
+        return sorted;
+    }
+}
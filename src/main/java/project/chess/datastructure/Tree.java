@@ -1,5 +1,15 @@
 package project.chess.datastructure;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
 /**
  * Generic n-ary tree class, using {@link TreeNode}
  * @param <T> The type of values stored in the tree nodes.
@@ -7,12 +17,18 @@ package project.chess.datastructure;
 
 public class Tree<T>
 {
+    // In parallelReduce, subtrees starting above this depth get their own task; deeper ones are walked by
+    // the task that reaches them
+    private static final int PARALLEL_DEPTH = 2;
+
     private TreeNode<T> root;
     // Total number of nodes currently in the tree
     private int length = 0;
 
     public boolean isEmpty() { return root == null; }
 
+    public int size() { return length; }
+
     /**
      * Sets the root node of the tree.
      * @param value The value to store in the root node.
@@ -33,13 +49,45 @@ public class Tree<T>
 
     public TreeNode<T> getRoot() { return root; }
 
+    /**
+     * Makes an existing node the root of the tree, keeping its subtree and discarding the rest.
+     * The node is detached from its parent so the old root and its other branches become unreachable.
+     * @param node The node to promote to root.
+     * @throws IllegalArgumentException If the node is null.
+     */
+    public void reRoot(TreeNode<T> node)
+    {
+        if (node == null)
+        {
+            throw new IllegalArgumentException("New root node cannot be null.");
+        }
+
+        TreeNode<T> parent = node.getParent();
+        if (parent != null)
+        {
+            parent.removeChild(node);
+            node.setParent(null);
+        }
+
+        root = node;
+        length = countNodes(node);
+    }
+
+    private int countNodes(TreeNode<T> node)
+    {
+        int count = 0;
+        for (TreeNode<T> ignored : preOrder(node)) count++;
+        return count;
+    }
+
     /**
      * Adds a child node with the given value.
      * @param parent The parent node to add the child to.
      * @param value The value for the new child node.
+     * @return The newly created child node.
      * @throws IllegalArgumentException If the parent node is null.
      */
-    public void addChild(TreeNode<T> parent, T value)
+    public TreeNode<T> addChild(TreeNode<T> parent, T value)
     {
         if (parent == null)
         {
@@ -49,49 +97,87 @@ public class Tree<T>
         TreeNode<T> child = new TreeNode<>(value);
         parent.addChild(child);
         length++;
+
+        return child;
     }
 
     /**
-     * Displays the tree using pre-order traversal.
+     * Removes a node and its whole subtree from the tree.
+     * The removed nodes drop their values, so code still holding one of them can tell it is no longer in the tree.
+     * @param node The root of the subtree to remove.
+     * @return The number of nodes removed.
+     * @throws IllegalArgumentException If the node is null or the root of the tree.
      */
-    public void displayPreOrder()
+    public int removeSubtree(TreeNode<T> node)
     {
-        displayPreOrderRecursive(root);
-    }
+        if (node == null || node == root)
+        {
+            throw new IllegalArgumentException("Cannot remove a null node or the root.");
+        }
+
+        if (node.getParent() != null) node.getParent().removeChild(node);
+
+        int removed = 0;
+        DynamicArray<TreeNode<T>> stack = new DynamicArray<>();
+        stack.append(node);
 
-    private void displayPreOrderRecursive(TreeNode<T> node) {
-        if (node == null) return;
+        while (!stack.isEmpty())
+        {
+            TreeNode<T> current = stack.removeLast();
 
-        // Process the root node
-        System.out.print(node.getValue() + " ");
+            // Children are collected before clear() drops them
+            DynamicArray<TreeNode<T>> children = current.getChildren();
+            for (int i = 0; i < children.size(); i++)
+            {
+                stack.append(children.get(i));
+            }
 
-        // Recursively process all children
-        for (TreeNode<T> childVal : node.getChildren().asIterable()) {
-            TreeNode<T> child = (TreeNode<T>) childVal;
-            displayPreOrderRecursive(child);
+            current.clear();
+            removed++;
         }
+
+        length -= removed;
+        return removed;
     }
 
     /**
-     * Displays the tree using post-order traversal.
+     * Iterates over the tree in pre-order (each node before its children), without recursion.
      */
-    public void displayPostOrder()
+    public Iterable<TreeNode<T>> preOrder() { return preOrder(root); }
+
+    /**
+     * Iterates over the subtree below a node in pre-order, without recursion.
+     */
+    public static <T> Iterable<TreeNode<T>> preOrder(TreeNode<T> start) { return () -> new PreOrderIterator<>(start); }
+
+    /**
+     * Iterates over the tree in post-order (each node after its children), without recursion.
+     */
+    public Iterable<TreeNode<T>> postOrder() { return postOrder(root); }
+
+    public static <T> Iterable<TreeNode<T>> postOrder(TreeNode<T> start) { return () -> new PostOrderIterator<>(start); }
+
+    /**
+     * Iterates over the tree level by level (breadth-first).
+     */
+    public Iterable<TreeNode<T>> levelOrder() { return levelOrder(root); }
+
+    public static <T> Iterable<TreeNode<T>> levelOrder(TreeNode<T> start) { return () -> new LevelOrderIterator<>(start); }
+
+    /**
+     * Displays the tree using pre-order traversal.
+     */
+    public void displayPreOrder()
     {
-        displayPostOrderRecursive(root);
+        for (TreeNode<T> node : preOrder()) System.out.print(node.getValue() + " ");
     }
 
-    private void displayPostOrderRecursive(TreeNode<T> node)
+    /**
+     * Displays the tree using post-order traversal.
+     */
+    public void displayPostOrder()
     {
-        if (node == null) { return; }
-
-        // Recursively process all children
-        for (TreeNode<T> child : node.getChildren().asIterable())
-        {
-            displayPostOrderRecursive(child);
-        }
-
-        // Process the root node
-        System.out.print(node.getValue() + " ");
+        for (TreeNode<T> node : postOrder()) System.out.print(node.getValue() + " ");
     }
 
     /**
@@ -100,18 +186,7 @@ public class Tree<T>
     public void displayLevelOrder() {
         if (root == null) return;
 
-        LinkedList<TreeNode<T>> queue = new LinkedList<>();
-        queue.append(root);
-
-        while (!queue.isEmpty()) {
-            TreeNode<T> node = queue.pop();
-            System.out.print(node.getValue() + " ");
-
-            // Add all children to queue
-            for (TreeNode<T> child : node.getChildren().asIterable()) {
-                queue.append(child);
-            }
-        }
+        for (TreeNode<T> node : levelOrder()) System.out.print(node.getValue() + " ");
         System.out.println();
     }
 
@@ -119,22 +194,15 @@ public class Tree<T>
      * Converts the tree to an array using pre-order traversal.
      * @return An array containing all node values.
      */
+    @SuppressWarnings("unchecked")
     public T[] asArray()
     {
-        LinkedList<T> list = new LinkedList<>();
-        flattenTree(root, list);
-        return list.asArray();
-    }
+        T[] values = (T[]) new Object[countNodes(root)];
 
-    private void flattenTree(TreeNode<T> node, LinkedList<T> list)
-    {
-        if (node == null) { return; }
+        int index = 0;
+        for (TreeNode<T> node : preOrder()) values[index++] = node.getValue();
 
-        list.append(node.getValue());
-        for (TreeNode<T> child : node.getChildren().asIterable())
-        {
-            flattenTree(child, list);
-        }
+        return values;
     }
 
     /**
@@ -143,7 +211,49 @@ public class Tree<T>
      */
     public void displayTreeStructure(boolean showNulls)
     {
-        displayTreeRecursive(root, "", true, showNulls);
+        if (root == null) return;
+
+        System.out.println("└── " + root.getValue());
+
+        // The path from the root, with the index of the next child to print at each level
+        DynamicArray<TreeNode<T>> path = new DynamicArray<>();
+        IntDynamicArray nextChild = new IntDynamicArray();
+        StringBuilder indent = new StringBuilder("    ");
+        path.append(root);
+        nextChild.append(0);
+
+        while (!path.isEmpty())
+        {
+            int depth = path.size() - 1;
+            DynamicArray<TreeNode<T>> children = path.get(depth).getChildren();
+            int index = nextChild.get(depth);
+
+            // If showNulls is true, print a null marker for leaf nodes
+            if (children.isEmpty() && showNulls)
+            {
+                System.out.println(indent + "└── null");
+            }
+
+            if (index < children.size())
+            {
+                boolean isLast = (index == children.size() - 1);
+                TreeNode<T> child = children.get(index);
+                nextChild.set(depth, index + 1);
+
+                System.out.println(indent + (isLast ? "└── " : "├── ") + child.getValue());
+
+                // Ensure children are aligned correctly
+                path.append(child);
+                nextChild.append(0);
+                indent.append(isLast ? "    " : "│   ");
+            }
+            else
+            {
+                path.removeLast();
+                nextChild.removeLast();
+                indent.setLength(Math.max(0, indent.length() - 4));
+            }
+        }
     }
 
     public void displayTreeStructure()
@@ -151,28 +261,249 @@ public class Tree<T>
         displayTreeStructure(true);
     }
 
-    private void displayTreeRecursive(TreeNode<T> node, String indent, boolean isLast, boolean showNulls)
+    /**
+     * Folds every node into a result, splitting the tree into fork/join tasks by subtree.
+     * Subtrees near the root are handed to separate tasks; below {@link #PARALLEL_DEPTH} each task walks its
+     * subtree sequentially, without recursion. The tree must not be modified while this runs.
+     * @param supplier Creates an empty result for each task.
+     * @param accumulator Adds one node, at the given depth below the root (0 for the root), to a result.
+     * @param combiner Merges two results; it must be associative and commutative, since tasks finish in any order.
+     * @return The combined result, or an empty one for an empty tree.
+     */
+    public <A> A parallelReduce(Supplier<A> supplier, NodeAccumulator<T, A> accumulator, BinaryOperator<A> combiner)
+    {
+        if (root == null) return supplier.get();
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(root, 0, supplier, accumulator, combiner));
+    }
+
+    /**
+     * Sums a value over every node in parallel, e.g. {@code node -> 1} for a node count or the visit count.
+     */
+    public long parallelSum(ToLongFunction<? super TreeNode<T>> value)
+    {
+        long[] sum = parallelReduce(() -> new long[1], (total, node, depth) -> total[0] += value.applyAsLong(node),
+                (a, b) -> { a[0] += b[0]; return a; });
+        return sum[0];
+    }
+
+    /**
+     * Adds one node to a partial result of {@link #parallelReduce}.
+     */
+    @FunctionalInterface
+    public interface NodeAccumulator<T, A>
     {
-        if (node == null) return;
+        void accept(A result, TreeNode<T> node, int depth);
+    }
 
-        // Print the current node with a tree branch
-        System.out.println(indent + (isLast ? "└── " : "├── ") + node.getValue());
+    private static class ReduceTask<T, A> extends RecursiveTask<A>
+    {
+        private final TreeNode<T> node;
+        private final int depth;
+        private final Supplier<A> supplier;
+        private final NodeAccumulator<T, A> accumulator;
+        private final BinaryOperator<A> combiner;
 
-        // Ensure chilren are aligned correctly
-        String newIndent = indent + (isLast ? "    " : "│   ");
-        var children = node.getChildren();
+        ReduceTask(TreeNode<T> node, int depth, Supplier<A> supplier, NodeAccumulator<T, A> accumulator, BinaryOperator<A> combiner)
+        {
+            this.node = node;
+            this.depth = depth;
+            this.supplier = supplier;
+            this.accumulator = accumulator;
+            this.combiner = combiner;
+        }
 
-        // Recursively display all children
-        for (int i = 0; i < children.size(); i++)
+        @Override
+        protected A compute()
         {
-            boolean childIsLast = (i == children.size() - 1);
-            displayTreeRecursive(children.get(i), newIndent, childIsLast, showNulls);
+            A result = supplier.get();
+
+            if (depth >= PARALLEL_DEPTH)
+            {
+                reduceSequentially(result);
+                return result;
+            }
+
+            accumulator.accept(result, node, depth);
+
+            DynamicArray<TreeNode<T>> children = node.getChildren();
+            List<ReduceTask<T, A>> tasks = new ArrayList<>(children.size());
+            for (int i = 0; i < children.size(); i++)
+            {
+                tasks.add(new ReduceTask<>(children.get(i), depth + 1, supplier, accumulator, combiner));
+            }
+
+            for (ReduceTask<T, A> task : invokeAll(tasks)) result = combiner.apply(result, task.join());
+            return result;
         }
 
-        // If showNulls is true, print a null marker for leaf nodes
-        if (children.isEmpty() && showNulls)
+        private void reduceSequentially(A result)
         {
-            System.out.println(newIndent + "└── null");
+            DynamicArray<TreeNode<T>> stack = new DynamicArray<>();
+            IntDynamicArray depths = new IntDynamicArray();
+            stack.append(node);
+            depths.append(depth);
+
+            while (!stack.isEmpty())
+            {
+                TreeNode<T> current = stack.removeLast();
+                int currentDepth = depths.removeLast();
+                accumulator.accept(result, current, currentDepth);
+
+                DynamicArray<TreeNode<T>> children = current.getChildren();
+                for (int i = 0; i < children.size(); i++)
+                {
+                    stack.append(children.get(i));
+                    depths.append(currentDepth + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks down and back up the tree with an explicit path: the nodes from the start to the current node,
+     * and in a primitive stack, the index of the next child to visit at each of them.
+     */
+    private static class PreOrderIterator<T> implements Iterator<TreeNode<T>>
+    {
+        private final DynamicArray<TreeNode<T>> path = new DynamicArray<>();
+        private final IntDynamicArray nextChild = new IntDynamicArray();
+        private TreeNode<T> next;
+
+        PreOrderIterator(TreeNode<T> start) { next = start; }
+
+        @Override
+        public boolean hasNext() { return next != null; }
+
+        @Override
+        public TreeNode<T> next()
+        {
+            if (next == null) throw new NoSuchElementException();
+            TreeNode<T> current = next;
+
+            if (!current.getChildren().isEmpty())
+            {
+                path.append(current);
+                nextChild.append(1);
+                next = current.getChildren().get(0);
+                return current;
+            }
+
+            next = null;
+            while (!path.isEmpty())
+            {
+                int depth = path.size() - 1;
+                DynamicArray<TreeNode<T>> siblings = path.get(depth).getChildren();
+                int index = nextChild.get(depth);
+
+                if (index < siblings.size())
+                {
+                    nextChild.set(depth, index + 1);
+                    next = siblings.get(index);
+                    break;
+                }
+
+                path.removeLast();
+                nextChild.removeLast();
+            }
+
+            return current;
+        }
+    }
+
+    private static class PostOrderIterator<T> implements Iterator<TreeNode<T>>
+    {
+        private final DynamicArray<TreeNode<T>> path = new DynamicArray<>();
+        private final IntDynamicArray nextChild = new IntDynamicArray();
+        private TreeNode<T> next;
+
+        PostOrderIterator(TreeNode<T> start)
+        {
+            if (start != null) next = descend(start);
+        }
+
+        /**
+         * Goes down the first children from a node, recording the path, and returns the leaf reached.
+         */
+        private TreeNode<T> descend(TreeNode<T> node)
+        {
+            while (!node.getChildren().isEmpty())
+            {
+                path.append(node);
+                nextChild.append(1);
+                node = node.getChildren().get(0);
+            }
+            return node;
+        }
+
+        @Override
+        public boolean hasNext() { return next != null; }
+
+        @Override
+        public TreeNode<T> next()
+        {
+            if (next == null) throw new NoSuchElementException();
+            TreeNode<T> current = next;
+
+            if (path.isEmpty())
+            {
+                next = null;
+                return current;
+            }
+
+            int depth = path.size() - 1;
+            TreeNode<T> parent = path.get(depth);
+            int index = nextChild.get(depth);
+
+            if (index < parent.getChildren().size())
+            {
+                nextChild.set(depth, index + 1);
+                next = descend(parent.getChildren().get(index));
+            }
+            else
+            {
+                path.removeLast();
+                nextChild.removeLast();
+                next = parent;
+            }
+
+            return current;
+        }
+    }
+
+    /**
+     * Breadth-first, with the queue in an array that is compacted once its consumed front outgrows the rest.
+     */
+    private static class LevelOrderIterator<T> implements Iterator<TreeNode<T>>
+    {
+        private DynamicArray<TreeNode<T>> queue = new DynamicArray<>();
+        private int head = 0;
+
+        LevelOrderIterator(TreeNode<T> start)
+        {
+            if (start != null) queue.append(start);
+        }
+
+        @Override
+        public boolean hasNext() { return head < queue.size(); }
+
+        @Override
+        public TreeNode<T> next()
+        {
+            if (head >= queue.size()) throw new NoSuchElementException();
+            TreeNode<T> current = queue.get(head++);
+
+            DynamicArray<TreeNode<T>> children = current.getChildren();
+            for (int i = 0; i < children.size(); i++) queue.append(children.get(i));
+
+            if (head > 1024 && head > queue.size() / 2)
+            {
+                DynamicArray<TreeNode<T>> remaining = new DynamicArray<>(queue.size() - head);
+                for (int i = head; i < queue.size(); i++) remaining.append(queue.get(i));
+                queue = remaining;
+                head = 0;
+            }
+
+            return current;
         }
     }
 }
@@ -1,7 +1,7 @@
 package project.chess.datastructure;
 
 /**
- * Represents a generic node in an n-ary tree using {@link LinkedList}.
+ * Represents a generic node in an n-ary tree, with its children in a {@link DynamicArray}.
  * @param <T> the type of value stored in the node.
  */
 
@@ -9,12 +9,12 @@ public class TreeNode<T>
 {
     private T value;
     private TreeNode<T> parent;
-    private LinkedList<TreeNode<T>> children;
+    private DynamicArray<TreeNode<T>> children;
 
     public TreeNode(T value)
     {
         this.value = value;
-        this.children = new LinkedList<>();
+        this.children = new DynamicArray<>();
     }
 
     public T getValue() { return value; }
@@ -23,23 +23,34 @@ public class TreeNode<T>
 
     public void setParent(TreeNode<T> p) { parent = p; }
 
-    public LinkedList<TreeNode<T>> getChildren() { return children; }
+    public DynamicArray<TreeNode<T>> getChildren() { return children; }
 
     /**
      * Adds a child node, and ensures that the child and parent are linked in both directions.
+     * Only {@link Tree} adds children, so that its node count stays correct; use {@link Tree#addChild}.
      * @param child
      */
-    public void addChild(TreeNode<T> child)
+    void addChild(TreeNode<T> child)
     {
         child.setParent(this);
         children.append(child);
     }
 
-    public boolean removeChild(TreeNode<T> child)
+    boolean removeChild(TreeNode<T> child)
     {
         return children.remove(child);
     }
 
+    /**
+     * Drops the node's value and links once a {@link Tree} has removed it.
+     */
+    void clear()
+    {
+        this.value = null;
+        this.parent = null;
+        this.children.clear();
+    }
+
     @Override
     public String toString() { return value.toString(); }
 }
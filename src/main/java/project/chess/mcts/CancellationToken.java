@@ -0,0 +1,15 @@
+package project.chess.mcts;
+
+/**
+ * Lets another thread ask a running search to stop.
+ * A cancelled search still completes normally and returns its best move so far.
+ */
+
+public class CancellationToken
+{
+    private volatile boolean cancelled = false;
+
+    public void cancel() { cancelled = true; }
+
+    public boolean isCancelled() { return cancelled; }
+}
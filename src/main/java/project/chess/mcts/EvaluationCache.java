@@ -0,0 +1,82 @@
+package project.chess.mcts;
+
+import project.chess.datastructure.LossyHashTable;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size, lock-free cache of evaluation scores, keyed by position hash and perspective colour.
+ *
+ * @details
+ * - Scores are kept in a {@link LossyHashTable}, which verifies each slot against its key, so threads can
+ *   share one instance and a slot torn by two concurrent writes reads as a miss instead of a wrong score.
+ * - Collisions simply overwrite the slot (always-replace), so memory use never grows.
+ */
+
+public class EvaluationCache
+{
+    // Stored scores are never NaN, so its bit pattern marks a miss
+    private static final long MISSING = Double.doubleToRawLongBits(Double.NaN);
+
+    private final LossyHashTable table;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param size The number of entries, rounded up to a power of two. Each entry takes 16 bytes.
+     */
+    public EvaluationCache(int size)
+    {
+        if (size <= 0) throw new IllegalArgumentException("Cache size must be positive");
+
+        table = new LossyHashTable(size);
+    }
+
+    /**
+     * Looks up a score.
+     * @return The cached score, or {@code Double.NaN} if the key is not cached.
+     */
+    public double get(long key)
+    {
+        // An empty slot only matches a key of 0, which a Zobrist hash practically never is
+        long scoreBits = table.get(key, MISSING);
+
+        if (scoreBits != MISSING)
+        {
+            hits.increment();
+            return Double.longBitsToDouble(scoreBits);
+        }
+
+        misses.increment();
+        return Double.NaN;
+    }
+
+    public void put(long key, double score)
+    {
+        table.put(key, Double.doubleToRawLongBits(score));
+    }
+
+    public int capacity() { return table.capacity(); }
+
+    public long getHits() { return hits.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    public double getHitRate()
+    {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return (total == 0) ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Empties the cache and resets the counters. Not safe to call while other threads are using the cache.
+     */
+    public void clear()
+    {
+        table.clear();
+        hits.reset();
+        misses.reset();
+    }
+}
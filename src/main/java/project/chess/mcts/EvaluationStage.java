@@ -0,0 +1,15 @@
+package project.chess.mcts;
+
+/**
+ * How far a staged evaluation got before it returned, see {@link HeuristicEvaluator#evaluateStaged}.
+ */
+
+public enum EvaluationStage
+{
+    // The score was found in the evaluation cache
+    CACHED,
+    // Only material and piece-square terms: the position was already lopsided beyond the lazy margin
+    MATERIAL,
+    // Every term was computed
+    FULL
+}
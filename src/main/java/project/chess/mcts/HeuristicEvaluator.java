@@ -1,13 +1,15 @@
 package project.chess.mcts;
 
 import project.chess.model.Chessboard;
+import project.chess.model.PieceSquareTables;
 import project.chess.model.PieceType;
+import project.chess.model.Zobrist;
 import project.chess.piece.Piece;
 
-import static project.chess.model.Chessboard.BOARD_WIDTH;
-import static project.chess.model.Chessboard.BOARD_SIZE;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 
-public class HeuristicEvaluator
+public class HeuristicEvaluator implements IEvaluator
 {
     // Base piece values
     public static final int PAWN_VALUE = 1;
@@ -19,46 +21,299 @@ public class HeuristicEvaluator
 
     // Weighting constants
     private static final double MOBILITY_FACTOR = 0.02;
-    private static final double PAWN_ADVANCEMENT_FACTOR = 0.1;
+    private static final double CENTIPAWNS = 100.0;
+    private static final int DEFAULT_PAWN_TABLE_SIZE = 1 << 14;
 
+    // The positional terms rarely move a score by more than a pawn, so three pawns of material is decisively lopsided
+    public static final double DEFAULT_LAZY_MARGIN = 3.0;
+
+    // Optional, may be shared between evaluators on different threads
+    private final EvaluationCache cache;
+
+    // Leaves squares attacked by enemy pawns out of the mobility count (should match between evaluators sharing a cache)
+    private boolean excludePawnAttackedSquares = true;
+
+    // Positions whose material score is further than this from level skip the expensive terms (same caveat as above)
+    private double lazyMargin = DEFAULT_LAZY_MARGIN;
+
+    // Pawn structure evaluations keyed by pawn placement; safe to use from every thread sharing this evaluator
+    private final PawnHashTable pawnTable = new PawnHashTable(DEFAULT_PAWN_TABLE_SIZE);
+
+    // Number of evaluations that ended at each stage, indexed by EvaluationStage ordinal
+    private final LongAdder[] stageCounts = new LongAdder[EvaluationStage.values().length];
+
+    public HeuristicEvaluator() { this(null); }
+
+    public HeuristicEvaluator(EvaluationCache cache)
+    {
+        this.cache = cache;
+        for (int i = 0; i < stageCounts.length; i++) stageCounts[i] = new LongAdder();
+    }
+
+    public EvaluationCache getCache() { return cache; }
+
+    public PawnHashTable getPawnTable() { return pawnTable; }
+
+    public boolean isExcludePawnAttackedSquares() { return excludePawnAttackedSquares; }
+
+    public void setExcludePawnAttackedSquares(boolean excludePawnAttackedSquares)
+    {
+        this.excludePawnAttackedSquares = excludePawnAttackedSquares;
+    }
+
+    public double getLazyMargin() { return lazyMargin; }
+
+    /**
+     * Sets how lopsided (in pawns) the material score must be for the expensive terms to be skipped.
+     * {@code Double.POSITIVE_INFINITY} always computes every term.
+     * @throws IllegalArgumentException If the margin is negative or NaN.
+     */
+    public void setLazyMargin(double lazyMargin)
+    {
+        if (!(lazyMargin >= 0)) throw new IllegalArgumentException("Lazy margin must be a non-negative number");
+        this.lazyMargin = lazyMargin;
+    }
+
+    /**
+     * Returns how many evaluations (including batched ones) ended at the given stage.
+     */
+    public long getStageCount(EvaluationStage stage) { return stageCounts[stage.ordinal()].sum(); }
+
+    public void resetStageCounts()
+    {
+        for (LongAdder count : stageCounts) count.reset();
+    }
+
+    /**
+     * Scores the board from the player's point of view, in pawns.
+     * If a cache is set, scores are looked up by position hash and perspective before being computed.
+     */
+    @Override
     public double evaluate(Chessboard board, Piece.Colour playerColour)
     {
-        double score = 0;
+        return evaluateStaged(board, playerColour).getScore();
+    }
+
+    /**
+     * Scores the board like {@link #evaluate}, and also reports the stage the evaluation stopped at.
+     * Stage one reads the material and piece-square score, which the board keeps up to date. The expensive
+     * terms only run if that score is within the lazy margin of level, since in a lopsided position they
+     * cannot change which side is winning.
+     */
+    public StagedEvaluation evaluateStaged(Chessboard board, Piece.Colour playerColour)
+    {
+        if (cache == null) return computeScore(board, playerColour);
 
-        for (int i = 0; i < BOARD_SIZE; i++)
+        // The board hash has no side to move, so the side-to-move key is reused to tell perspectives apart
+        long key = board.getZobristHash() ^ Zobrist.sideToMoveKey(playerColour);
+
+        double score = cache.get(key);
+        if (!Double.isNaN(score))
         {
-            Piece piece = board.getPiece(i);
-            if (piece == null) continue;
+            stageCounts[EvaluationStage.CACHED.ordinal()].increment();
+            return new StagedEvaluation(score, EvaluationStage.CACHED);
+        }
+
+        StagedEvaluation evaluation = computeScore(board, playerColour);
+        cache.put(key, evaluation.getScore());
 
-            double pieceScore = getPieceValue(piece);
+        return evaluation;
+    }
 
-            // Pawn advancement bonus
-            if (piece.getType() == PieceType.PAWN) {
-                int rank = i / BOARD_WIDTH; // 0 = top row, 7 = bottom row
-                pieceScore += getPawnProgress(rank, piece.getColour()) * PAWN_ADVANCEMENT_FACTOR;
+    /**
+     * Scores several boards in one call, each from its own player's point of view.
+     * Gives the same scores as calling {@link #evaluate} on each board, but does the work in passes over the
+     * whole batch, one term at a time: cache lookups, then the material score (which finishes the lopsided
+     * boards), then pawn structure and king shelter, then mobility. Each pass only visits the boards still
+     * pending, packed to the front of an index list.
+     * @param boards The positions to score.
+     * @param playerColours The point of view for each board.
+     * @return One score per board, in pawns.
+     * @throws IllegalArgumentException If the arrays differ in length.
+     */
+    @Override
+    public double[] evaluateBatch(Chessboard[] boards, Piece.Colour[] playerColours)
+    {
+        if (boards.length != playerColours.length)
+        {
+            throw new IllegalArgumentException("Expected one player colour per board");
+        }
+
+        double[] scores = new double[boards.length];
+        long[] keys = new long[boards.length];
+
+        // Only boards that miss the cache are computed, packed to the front of this index list
+        int[] pending = new int[boards.length];
+        int pendingCount = 0;
+
+        for (int b = 0; b < boards.length; b++)
+        {
+            if (cache != null)
+            {
+                keys[b] = boards[b].getZobristHash() ^ Zobrist.sideToMoveKey(playerColours[b]);
+                scores[b] = cache.get(keys[b]);
+                if (!Double.isNaN(scores[b]))
+                {
+                    stageCounts[EvaluationStage.CACHED.ordinal()].increment();
+                    continue;
+                }
             }
+            pending[pendingCount++] = b;
+        }
+
+        // Material pass: boards outside the lazy margin are finished, the rest are packed into the full list
+        int[] full = new int[pendingCount];
+        int fullCount = 0;
+
+        for (int p = 0; p < pendingCount; p++)
+        {
+            int b = pending[p];
+            scores[b] = materialTerm(boards[b], playerColours[b]);
+
+            if (Math.abs(scores[b]) > lazyMargin) stageCounts[EvaluationStage.MATERIAL.ordinal()].increment();
+            else full[fullCount++] = b;
+        }
+
+        // Pawn pass: one pawn table probe per board, kept for the mobility pass
+        PawnStructure[] pawns = new PawnStructure[fullCount];
 
-            if (piece.getColour() == playerColour) score += pieceScore;
-            else score -= pieceScore;
+        for (int f = 0; f < fullCount; f++)
+        {
+            int b = full[f];
+            pawns[f] = probePawnStructure(boards[b]);
+            scores[b] += pawnTerm(boards[b], pawns[f], playerColours[b]);
+        }
+
+        // Mobility pass
+        for (int f = 0; f < fullCount; f++)
+        {
+            int b = full[f];
+            scores[b] += mobilityBonus(boards[b], pawns[f], playerColours[b]);
+            stageCounts[EvaluationStage.FULL.ordinal()].increment();
+        }
+
+        if (cache != null)
+        {
+            for (int p = 0; p < pendingCount; p++) cache.put(keys[pending[p]], scores[pending[p]]);
         }
 
-        score += mobilityBonus(board, playerColour);
+        return scores;
+    }
+
+    /**
+     * Scores every board from the same player's point of view, see {@link #evaluateBatch(Chessboard[], Piece.Colour[])}.
+     */
+    @Override
+    public double[] evaluateBatch(Chessboard[] boards, Piece.Colour playerColour)
+    {
+        Piece.Colour[] playerColours = new Piece.Colour[boards.length];
+        Arrays.fill(playerColours, playerColour);
+        return evaluateBatch(boards, playerColours);
+    }
+
+    /**
+     * Scores the positions after each candidate move, from the player's point of view.
+     * @param board The position before the moves.
+     * @param moves The candidate moves, as {@link project.chess.model.Move} codes.
+     */
+    public double[] evaluateMoves(Chessboard board, int[] moves, Piece.Colour playerColour)
+    {
+        Chessboard[] boards = new Chessboard[moves.length];
+        for (int i = 0; i < moves.length; i++) boards[i] = board.copyWithMove(moves[i]);
 
-        return score;
+        return evaluateBatch(boards, playerColour);
     }
 
-    private double mobilityBonus(Chessboard board, Piece.Colour playerColour)
+    /**
+     * Material and piece-square terms are read from the board's incrementally updated score, in O(1).
+     * Pawn structure, king shelter and mobility are only added if the material score is within the lazy margin.
+     */
+    private StagedEvaluation computeScore(Chessboard board, Piece.Colour playerColour)
     {
-        int playerMobility = board.generateAllLegalMoveBoards(playerColour).size();
+        double score = materialTerm(board, playerColour);
+
+        if (Math.abs(score) > lazyMargin)
+        {
+            stageCounts[EvaluationStage.MATERIAL.ordinal()].increment();
+            return new StagedEvaluation(score, EvaluationStage.MATERIAL);
+        }
+
+        PawnStructure pawns = probePawnStructure(board);
+        score += pawnTerm(board, pawns, playerColour);
+        score += mobilityBonus(board, pawns, playerColour);
+
+        stageCounts[EvaluationStage.FULL.ordinal()].increment();
+        return new StagedEvaluation(score, EvaluationStage.FULL);
+    }
 
-        Piece.Colour opponent = (playerColour == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
-        int opponentMobility = board.generateAllLegalMoveBoards(opponent).size();
+    private static double materialTerm(Chessboard board, Piece.Colour playerColour)
+    {
+        double sign = (playerColour == Piece.Colour.WHITE) ? 1 : -1;
+        return sign * board.getMaterialScore() / CENTIPAWNS;
+    }
 
-        return (playerMobility - opponentMobility) * MOBILITY_FACTOR;
+    /**
+     * Pawn structure plus king shelter, from the player's point of view.
+     */
+    private double pawnTerm(Chessboard board, PawnStructure pawns, Piece.Colour playerColour)
+    {
+        double sign = (playerColour == Piece.Colour.WHITE) ? 1 : -1;
+        return sign * (pawns.getScore() + kingShelter(board, pawns));
     }
 
-    private int getPieceValue(Piece piece) {
-        switch(piece.getType()) {
+    private PawnStructure probePawnStructure(Chessboard board)
+    {
+        PawnStructure pawns = pawnTable.get(board.getPawnHash());
+
+        if (pawns == null)
+        {
+            pawns = PawnStructure.analyse(board.getPawns(Piece.Colour.WHITE), board.getPawns(Piece.Colour.BLACK));
+            pawnTable.put(board.getPawnHash(), pawns);
+        }
+
+        return pawns;
+    }
+
+    /**
+     * Difference in pawn shield of the two kings, from White's point of view. Scaled down as pieces come off,
+     * since an exposed king matters less the fewer attackers are left.
+     */
+    private double kingShelter(Chessboard board, PawnStructure pawns)
+    {
+        double shield = pawns.kingShield(Piece.Colour.WHITE, board.getKingPosition(Piece.Colour.WHITE))
+                - pawns.kingShield(Piece.Colour.BLACK, board.getKingPosition(Piece.Colour.BLACK));
+
+        return shield * Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE) / PieceSquareTables.MAX_PHASE;
+    }
+
+    /**
+     * Difference in pseudo-legal mobility of the knights, bishops, rooks and queens, counted straight from
+     * the board without generating moves. Squares attacked by enemy pawns are left out by default, since a
+     * piece cannot safely go there.
+     */
+    private double mobilityBonus(Chessboard board, PawnStructure pawns, Piece.Colour playerColour)
+    {
+        long whiteExcluded = excludePawnAttackedSquares ? pawns.getPawnAttacks(Piece.Colour.BLACK) : 0L;
+        long blackExcluded = excludePawnAttackedSquares ? pawns.getPawnAttacks(Piece.Colour.WHITE) : 0L;
+
+        int whiteMobility = 0;
+        int blackMobility = 0;
+
+        for (int i = 0; i < Chessboard.BOARD_SIZE; i++)
+        {
+            Piece piece = board.getPiece(i);
+            if (piece == null) continue;
+
+            if (piece.getColour() == Piece.Colour.WHITE) whiteMobility += piece.countMobility(i, board, whiteExcluded);
+            else blackMobility += piece.countMobility(i, board, blackExcluded);
+        }
+
+        int mobility = (playerColour == Piece.Colour.WHITE) ? whiteMobility - blackMobility : blackMobility - whiteMobility;
+        return mobility * MOBILITY_FACTOR;
+    }
+
+    public static int getPieceValue(PieceType type) {
+        switch(type) {
             case PAWN:   return PAWN_VALUE;
             case KNIGHT: return KNIGHT_VALUE;
             case BISHOP: return BISHOP_VALUE;
@@ -68,10 +323,4 @@ public class HeuristicEvaluator
             default:     return 0;
         }
     }
-
-    private double getPawnProgress(int rank, Piece.Colour colour)
-    {
-        if (colour == Piece.Colour.WHITE) return (6 - rank) / 6.0;
-        else return (rank - 1) / 6.0;
-    }
 }
@@ -0,0 +1,46 @@
+package project.chess.mcts;
+
+import project.chess.model.Chessboard;
+import project.chess.piece.Piece;
+
+import java.util.Arrays;
+
+/**
+ * Interface for the leaf evaluators used by {@link MonteCarloTreeSearch}.
+ * Scores are in pawns, from the given player's point of view.
+ */
+
+public interface IEvaluator
+{
+    double evaluate(Chessboard board, Piece.Colour playerColour);
+
+    /**
+     * Scores several boards, each from its own player's point of view.
+     * @throws IllegalArgumentException If the arrays differ in length.
+     */
+    default double[] evaluateBatch(Chessboard[] boards, Piece.Colour[] playerColours)
+    {
+        if (boards.length != playerColours.length)
+        {
+            throw new IllegalArgumentException("Expected one player colour per board");
+        }
+
+        double[] scores = new double[boards.length];
+        for (int b = 0; b < boards.length; b++) scores[b] = evaluate(boards[b], playerColours[b]);
+
+        return scores;
+    }
+
+    default double[] evaluateBatch(Chessboard[] boards, Piece.Colour playerColour)
+    {
+        Piece.Colour[] playerColours = new Piece.Colour[boards.length];
+        Arrays.fill(playerColours, playerColour);
+        return evaluateBatch(boards, playerColours);
+    }
+
+    /**
+     * Called on the root board before a search, so that any state the evaluator keeps on boards is set up once
+     * and then copied into every position the search reaches. Does nothing by default.
+     */
+    default void prepare(Chessboard board) {}
+}
@@ -0,0 +1,27 @@
+package project.chess.mcts;
+
+/**
+ * Interface for the arithmetic of {@link NetworkEvaluator}, so the vectorised version can be swapped for the
+ * scalar one on JVMs without the Vector API.
+ */
+
+public interface INetworkKernels
+{
+    /**
+     * Adds {@code weights[offset .. offset + accumulator.length)} to the accumulator, element by element.
+     */
+    void add(short[] accumulator, short[] weights, int offset);
+
+    /**
+     * Subtracts {@code weights[offset .. offset + accumulator.length)} from the accumulator, element by element.
+     */
+    void subtract(short[] accumulator, short[] weights, int offset);
+
+    /**
+     * Clamps each value to {@code [0, clamp]} (a clipped ReLU) and returns the dot product with the weights,
+     * starting at the given offset.
+     */
+    int clampedDot(short[] values, short[] weights, int offset, int clamp);
+
+    default boolean isVectorized() { return false; }
+}
@@ -1,42 +1,139 @@
 package project.chess.mcts;
 
 import project.chess.model.Game;
+import project.chess.model.Move;
 import project.chess.piece.Piece;
 
+import java.util.Arrays;
+
 public class MCTSData
 {
     private Game state;
     private String move;
-    private int visits;
-    private double wins;
+    // The move as a Move code, or Move.NONE if the node was not created by the search (e.g. a pre-built tree)
+    private int moveCode = Move.NONE;
     private Piece.Colour playerToMove;
 
+    // Possibly shared with transposed nodes, see TranspositionTable
+    private final NodeStatistics statistics;
+
+    // Legal moves (as Move codes) that have not been expanded into child nodes yet (null until first generated)
+    private int[] untriedMoves;
+    private int untriedCount;
+    // Prior probabilities of the untried moves, parallel to untriedMoves (null unless PUCT selection is used)
+    private float[] untriedPriors;
+
+    // Prior probability of the move into this node, given by its parent's move generation
+    private float prior = 0;
+
+    // Kept per node rather than in the shared statistics, since draws by the fifty-move rule depend on the path
+    private ProvenResult provenResult = ProvenResult.UNKNOWN;
+
     public MCTSData(Game state, String move, Piece.Colour playerToMove)
+    {
+        this(state, move, playerToMove, new NodeStatistics());
+    }
+
+    public MCTSData(Game state, String move, Piece.Colour playerToMove, NodeStatistics statistics)
     {
         this.state = state;
         this.move = move;
         this.playerToMove = playerToMove;
-        this.visits = 0;
-        this.wins = 0.0;
+        this.statistics = statistics;
+        this.untriedMoves = null;
     }
 
     public Game getState() { return state; }
 
     public String getMove() { return move; }
 
-    public int getVisits() { return visits; }
+    public int getMoveCode() { return moveCode; }
+
+    public void setMoveCode(int moveCode) { this.moveCode = moveCode; }
 
-    public double getWins() { return wins; }
+    public int getVisits() { return statistics.getVisits(); }
+
+    public double getWins() { return statistics.getWins(); }
 
     public Piece.Colour getPlayerToMove() { return playerToMove; }
 
-    public void incrementVisits() { visits++; }
+    public NodeStatistics getStatistics() { return statistics; }
+
+    public void incrementVisits() { statistics.incrementVisits(); }
+
+    public void addWin(double score) { statistics.addWin(score); }
+
+    public void setUntriedMoves(int[] moves)
+    {
+        setUntriedMoves(moves, null);
+    }
+
+    /**
+     * @param priors One prior per move, or null if priors are not used.
+     */
+    public void setUntriedMoves(int[] moves, float[] priors)
+    {
+        untriedMoves = moves;
+        untriedPriors = priors;
+        untriedCount = moves.length;
+    }
+
+    public int getUntriedMoveCount() { return untriedCount; }
+
+    public int getUntriedMove(int index) { return untriedMoves[index]; }
+
+    public float getUntriedPrior(int index) { return (untriedPriors == null) ? 0 : untriedPriors[index]; }
+
+    public boolean hasPriors() { return untriedPriors != null; }
+
+    public float getPrior() { return prior; }
+
+    public void setPrior(float prior) { this.prior = prior; }
+
+    /**
+     * Removes and returns the untried move at the given index, swapping the last untried move into its place.
+     */
+    public int removeUntriedMove(int index)
+    {
+        int move = untriedMoves[index];
+        untriedCount--;
+        untriedMoves[index] = untriedMoves[untriedCount];
+        if (untriedPriors != null) untriedPriors[index] = untriedPriors[untriedCount];
+        return move;
+    }
+
+    public ProvenResult getProvenResult() { return provenResult; }
+
+    public void setProvenResult(ProvenResult provenResult) { this.provenResult = provenResult; }
+
+    public boolean isProven() { return provenResult != ProvenResult.UNKNOWN; }
+
+    /**
+     * Puts a move back on the untried list, e.g. after its child node has been pruned.
+     */
+    public void addUntriedMove(int move, float prior)
+    {
+        if (untriedCount == untriedMoves.length)
+        {
+            untriedMoves = Arrays.copyOf(untriedMoves, untriedCount + 1);
+            if (untriedPriors != null) untriedPriors = Arrays.copyOf(untriedPriors, untriedCount + 1);
+        }
+
+        untriedMoves[untriedCount] = move;
+        if (untriedPriors != null) untriedPriors[untriedCount] = prior;
+        untriedCount++;
+    }
+
+    public boolean hasGeneratedMoves() { return untriedMoves != null; }
 
-    public void addWin(double score) { wins += score; }
+    /**
+     * A node is fully expanded once its moves have been generated and every one of them has a child node.
+     */
+    public boolean isFullyExpanded() { return untriedMoves != null && untriedCount == 0; }
 
     @Override
     public String toString()
     {
-        return move == null ? "(root)" : move + " [" + wins + "/" + visits + "]";
+        return move == null ? "(root)" : move + " [" + getWins() + "/" + getVisits() + "]";
     }
 }
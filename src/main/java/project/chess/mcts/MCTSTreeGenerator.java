@@ -11,19 +11,36 @@ import java.util.List;
 
 public class MCTSTreeGenerator
 {
-    public static Tree<MCTSData> generateTree(Game rootGame, int depth)
+    /**
+     * Creates a search tree containing only the root position.
+     * Children are expanded lazily by {@link MonteCarloTreeSearch}, one per visit.
+     * The tree works on its own copy of the game, so moves made or taken back on the original do not reach it.
+     */
+    public static Tree<MCTSData> generateTree(Game rootGame)
     {
         Tree<MCTSData> tree = new Tree<>();
 
-        MCTSData rootData = new MCTSData(rootGame, null, Piece.Colour.WHITE);
+        MCTSData rootData = new MCTSData(cloneGame(rootGame), null, rootGame.getCurrentTurn());
         tree.setRoot(rootData);
 
-        expandNodeRecursive(tree.getRoot(), depth, 0);
+        return tree;
+    }
+
+    /**
+     * Eagerly builds every legal line down to a fixed depth.
+     * This is expensive (thousands of game copies at depth 3) and is only intended for
+     * inspecting or displaying small trees; searches should start from {@link #generateTree(Game)}.
+     */
+    public static Tree<MCTSData> generateTree(Game rootGame, int depth)
+    {
+        Tree<MCTSData> tree = generateTree(rootGame);
+
+        expandNodeRecursive(tree, tree.getRoot(), depth, 0);
 
         return tree;
     }
 
-    private static void expandNodeRecursive(TreeNode<MCTSData> node, int maxDepth, int currentDepth)
+    private static void expandNodeRecursive(Tree<MCTSData> tree, TreeNode<MCTSData> node, int maxDepth, int currentDepth)
     {
         if (currentDepth >= maxDepth)
             return;
@@ -44,10 +61,10 @@ public class MCTSTreeGenerator
             Piece.Colour nextPlayer = (colourToMove == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
             MCTSData childData = new MCTSData(newGame, moveSAN, nextPlayer);
 
-            TreeNode<MCTSData> childNode = new TreeNode<>(childData);
-            node.addChild(childNode); // attaches to the correct node in the tree
+            // Added through the tree so its node count includes the child
+            TreeNode<MCTSData> childNode = tree.addChild(node, childData);
 
-            expandNodeRecursive(childNode, maxDepth, currentDepth + 1);
+            expandNodeRecursive(tree, childNode, maxDepth, currentDepth + 1);
         }
     }
 
@@ -1,95 +1,540 @@
 package project.chess.mcts;
 
 import project.chess.model.Chessboard;
+import project.chess.model.ChessboardPool;
 import project.chess.model.Game;
+import project.chess.model.Move;
+import project.chess.datastructure.DynamicArray;
+import project.chess.datastructure.TopKHeap;
 import project.chess.datastructure.TreeNode;
 import project.chess.datastructure.Pair;
 import project.chess.datastructure.Tree;
 import project.chess.datastructure.LinkedList;
 import project.chess.piece.Piece;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MonteCarloTreeSearch
 {
-    private static final double EXPLORATION_PARAMETER = Math.sqrt(2);
     private static final int MAX_PLAYOUT_DEPTH = 15;
+    // Plies without a capture or pawn move after which the game is drawn, as in Game
+    private static final int FIFTY_MOVE_PLIES = 100;
     private static final double ROLLOUT_TEMPERATURE = 1.0;
+    // How often (in simulations) a budgeted search publishes its best move and checks for an early stop
+    private static final int PROGRESS_INTERVAL = 16;
+    private static final int DEFAULT_EVALUATION_CACHE_SIZE = 1 << 16;
+    // Heap use of one tree node, including its Game copy and transposition table entry. TreeMemoryBenchmark
+    // measures about 1.7 KB (Kiwipete, default tables); rounded up, since positions with more moves take more
+    private static final long ESTIMATED_NODE_BYTES = 2048;
+    // Pruning shrinks the tree to this fraction of the node cap, so it does not have to run on every expansion
+    private static final double PRUNE_TARGET = 0.75;
 
     private final Random random = new Random();
+    private IEvaluator evaluator = new HeuristicEvaluator(new EvaluationCache(DEFAULT_EVALUATION_CACHE_SIZE));
+    private final RolloutPolicy rolloutPolicy = new RolloutPolicy(ROLLOUT_TEMPERATURE);
+
+    // Scores every rollout candidate with the full evaluator instead of the cheap policy (much slower)
+    private boolean fullEvaluationRollouts = false;
+
+    // Best root move of the current (or last) budgeted search, readable from any thread
+    private volatile String bestMoveSoFar = null;
+    // Set while a budgeted search runs; the instance's state (random, caches, tables) is not shared between searches
+    private final AtomicBoolean searching = new AtomicBoolean(false);
+
+    private SelectionPolicy selectionPolicy = SelectionPolicy.UCT;
+    private double explorationConstant = SelectionPolicy.UCT.getDefaultExploration();
+
+    // Number of leaves collected before they are evaluated together, see setLeafBatchSize
+    private int leafBatchSize = 1;
+
+    // Once the tree reaches this many nodes, the least visited subtrees are pruned before expanding further
+    private int maxTreeNodes = Integer.MAX_VALUE;
+
+    // Shares statistics between transposed nodes of one tree; null disables transposition detection
+    private TranspositionTable transpositionTable = new TranspositionTable();
+    // The root of the tree the table's entries belong to, see useTree
+    private TreeNode<MCTSData> tableRoot = null;
+
+    public TranspositionTable getTranspositionTable() { return transpositionTable; }
+
+    /**
+     * Replaces the transposition table. It is cleared before its first use, like it is for every new tree.
+     */
+    public void setTranspositionTable(TranspositionTable transpositionTable)
+    {
+        this.transpositionTable = transpositionTable;
+        this.tableRoot = null;
+    }
+
+    public void setFullEvaluationRollouts(boolean fullEvaluationRollouts) { this.fullEvaluationRollouts = fullEvaluationRollouts; }
+
+    public SelectionPolicy getSelectionPolicy() { return selectionPolicy; }
+
+    /**
+     * Switches the tree policy and resets the exploration constant to the policy's default.
+     * Should be set before searching a tree: priors are only computed for nodes expanded under PUCT.
+     */
+    public void setSelectionPolicy(SelectionPolicy selectionPolicy)
+    {
+        this.selectionPolicy = selectionPolicy;
+        this.explorationConstant = selectionPolicy.getDefaultExploration();
+    }
+
+    public double getExplorationConstant() { return explorationConstant; }
+
+    public void setExplorationConstant(double explorationConstant)
+    {
+        if (explorationConstant < 0) throw new IllegalArgumentException("Exploration constant must not be negative");
+        this.explorationConstant = explorationConstant;
+    }
+
+    public int getMaxTreeNodes() { return maxTreeNodes; }
+
+    /**
+     * Caps the size of searched trees. When a tree reaches the cap, its least visited subtrees below the
+     * root moves are pruned and their nodes recycled. If that is not enough, the search stops expanding.
+     * @throws IllegalArgumentException If the cap is below 2.
+     */
+    public void setMaxTreeNodes(int maxTreeNodes)
+    {
+        if (maxTreeNodes < 2) throw new IllegalArgumentException("Tree node cap must be at least 2");
+        this.maxTreeNodes = maxTreeNodes;
+    }
+
+    /**
+     * Caps the size of searched trees by their estimated heap use, see {@link #setMaxTreeNodes}.
+     * Lets several concurrent searches divide one heap between them.
+     */
+    public void setMemoryLimit(long bytes)
+    {
+        setMaxTreeNodes((int) Math.min(bytes / ESTIMATED_NODE_BYTES, Integer.MAX_VALUE));
+    }
+
+    public int getNodeCount(Tree<MCTSData> tree) { return tree.size(); }
+
+    /**
+     * Estimates the heap used by the tree's nodes, their game states and transposition table entries.
+     */
+    public long estimateMemoryBytes(Tree<MCTSData> tree) { return tree.size() * ESTIMATED_NODE_BYTES; }
+
+    public IEvaluator getEvaluator() { return evaluator; }
+
+    /**
+     * Replaces the leaf evaluator, e.g. with a {@link NetworkEvaluator} or a {@link HeuristicEvaluator} that
+     * shares its {@link EvaluationCache} with other searches.
+     */
+    public void setEvaluator(IEvaluator evaluator) { this.evaluator = evaluator; }
+
+    public int getLeafBatchSize() { return leafBatchSize; }
+
+    /**
+     * Sets how many leaves are collected before their positions are scored in one
+     * {@link IEvaluator#evaluateBatch} call. While a batch is collected, each selected path counts its
+     * visit straight away (a virtual loss), which steers the next selections onto other lines.
+     * @throws IllegalArgumentException If the size is below 1.
+     */
+    public void setLeafBatchSize(int leafBatchSize)
+    {
+        if (leafBatchSize < 1) throw new IllegalArgumentException("Leaf batch size must be at least 1");
+        this.leafBatchSize = leafBatchSize;
+    }
 
     public void runSimulations(Tree<MCTSData> tree, int simulations)
+    {
+        useTree(tree);
+        evaluator.prepare(tree.getRoot().getValue().getState().getBoard());
+
+        for (int i = 0; i < simulations; i += leafBatchSize)
+        {
+            runBatch(tree, Math.min(leafBatchSize, simulations - i));
+        }
+    }
+
+    /**
+     * Runs a number of simulations. With more than one, the leaves of all of them are collected first,
+     * then scored in one batch and backpropagated.
+     * @return The number of nodes added to the tree.
+     */
+    private int runBatch(Tree<MCTSData> tree, int simulations)
     {
         TreeNode<MCTSData> root = tree.getRoot();
 
-        for (int i = 0; i < simulations; i++)
+        // Only pruned between batches, since pruning could recycle a collected leaf
+        if (tree.size() >= maxTreeNodes) pruneTree(tree);
+
+        if (simulations == 1)
         {
             TreeNode<MCTSData> selectedNode = select(root);
-            TreeNode<MCTSData> expandedNode = expand(selectedNode);
+            TreeNode<MCTSData> expandedNode = expand(tree, selectedNode);
             double result = simulate(expandedNode);
-            backpropagate(expandedNode, result);
+            backpropagate(expandedNode, result, true);
+
+            return (expandedNode != selectedNode) ? 1 : 0;
+        }
+
+        int nodesCreated = 0;
+        List<Leaf> leaves = new ArrayList<>(simulations);
+
+        for (int i = 0; i < simulations; i++)
+        {
+            TreeNode<MCTSData> selectedNode = select(root);
+            TreeNode<MCTSData> expandedNode = expand(tree, selectedNode);
+            if (expandedNode != selectedNode) nodesCreated++;
+
+            leaves.add(playOut(expandedNode));
+            addVisits(expandedNode);
         }
+
+        evaluateLeaves(leaves);
+
+        for (Leaf leaf : leaves)
+        {
+            leaf.releaseBoard();
+            backpropagate(leaf.node, leaf.result, false);
+        }
+
+        return nodesCreated;
     }
 
+    /**
+     * Returns every root move, best first by win rate, see {@link RankingCriterion#WIN_RATE}.
+     */
     public LinkedList<String> getRankedMoves(Tree<MCTSData> tree)
+    {
+        DynamicArray<MoveStatistics> ranked = getTopMoves(tree, Math.max(1, tree.getRoot().getChildren().size()), RankingCriterion.WIN_RATE);
+
+        LinkedList<String> rankedMoves = new LinkedList<>();
+        for (MoveStatistics statistics : ranked) rankedMoves.append(statistics.getMove());
+
+        return rankedMoves;
+    }
+
+    /**
+     * Returns the best k root moves with their statistics, best first, in O(n log k) for n root moves.
+     * Moves that rank equally keep the order of the root's children.
+     * @throws IllegalArgumentException If k is below 1.
+     */
+    public DynamicArray<MoveStatistics> getTopMoves(Tree<MCTSData> tree, int k, RankingCriterion criterion)
+    {
+        DynamicArray<TreeNode<MCTSData>> children = tree.getRoot().getChildren();
+        TopKHeap<RankedMove> top = new TopKHeap<>(k, Comparator.comparing(RankedMove::statistics, criterion.comparator())
+                .thenComparing(Comparator.comparingInt(RankedMove::order).reversed()));
+
+        for (int i = 0; i < children.size(); i++)
+        {
+            top.offer(new RankedMove(MoveStatistics.of(children.get(i).getValue()), i));
+        }
+
+        DynamicArray<MoveStatistics> result = new DynamicArray<>(top.size());
+        for (RankedMove move : top.toSortedArray()) result.append(move.statistics());
+
+        return result;
+    }
+
+    private record RankedMove(MoveStatistics statistics, int order) {}
+
+    public String findBestMove(Tree<MCTSData> tree, int simulations)
+    {
+        runSimulations(tree, simulations);
+
+        LinkedList<String> rankedMoves = getRankedMoves(tree);
+
+        return rankedMoves.isEmpty() ? null : rankedMoves.get(0);
+    }
+
+    /**
+     * Runs an anytime search on the tree until the first of these happens:
+     * a limit in {@code limits} is reached, the token is cancelled, the thread is interrupted,
+     * or the most visited root move can no longer be overtaken within the remaining budget.
+     * @param tree The search tree; its statistics are kept, so it can be searched again later.
+     * @param limits The simulation, time and node budgets for this search.
+     * @param token A token that another thread can use to stop the search early.
+     * @return The most visited root move, or null if the root position has no moves.
+     * @throws IllegalStateException If this instance is already running a search, see {@link #searchAsync}.
+     */
+    public String search(Tree<MCTSData> tree, SearchLimits limits, CancellationToken token)
+    {
+        return search(tree, limits, token, null);
+    }
+
+    private String search(Tree<MCTSData> tree, SearchLimits limits, CancellationToken token, SearchTask task)
+    {
+        if (!searching.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("This search instance is already running a search");
+        }
+
+        try
+        {
+            return runSearch(tree, limits, token, task);
+        }
+        finally
+        {
+            searching.set(false);
+        }
+    }
+
+    private String runSearch(Tree<MCTSData> tree, SearchLimits limits, CancellationToken token, SearchTask task)
     {
         TreeNode<MCTSData> root = tree.getRoot();
-        LinkedList<TreeNode<MCTSData>> children = root.getChildren();
-        LinkedList<TreeNode<MCTSData>> sorted = new LinkedList<>();
+        if (root.getValue().getState().isGameOver()) return null;
+        useTree(tree);
+        evaluator.prepare(root.getValue().getState().getBoard());
+
+        long startTime = System.nanoTime();
+        long timeBudget = TimeUnit.MILLISECONDS.toNanos(limits.getMaxTimeMillis());
+        long simulations = 0;
+        long nodesCreated = 0;
+
+        publishBestMove(mostVisitedMove(root), task);
+
+        while (!token.isCancelled() && !Thread.currentThread().isInterrupted())
+        {
+            long elapsed = System.nanoTime() - startTime;
+
+            if (simulations >= limits.getMaxSimulations()
+                    || nodesCreated >= limits.getMaxNodes()
+                    || elapsed >= timeBudget) break;
+
+            int batch = (int) Math.min(leafBatchSize, limits.getMaxSimulations() - simulations);
+            nodesCreated += runBatch(tree, batch);
+            simulations += batch;
+
+            // Checked whenever the count passes a multiple of the interval
+            if (simulations % PROGRESS_INTERVAL < batch)
+            {
+                publishBestMove(mostVisitedMove(root), task);
+
+                long remaining = remainingSimulations(limits, simulations, System.nanoTime() - startTime, timeBudget);
+                if (isDecided(root, remaining)) break;
+            }
+        }
+
+        String bestMove = mostVisitedMove(root);
+        publishBestMove(bestMove, task);
+        return bestMove;
+    }
+
+    private void publishBestMove(String move, SearchTask task)
+    {
+        bestMoveSoFar = move;
+        if (task != null) task.setBestMoveSoFar(move);
+    }
+
+    /**
+     * Starts {@link #search} on a background thread.
+     * Cancelling the returned task interrupts the search; {@link SearchTask#getBestMoveSoFar()} still holds
+     * the best move it found up to that point.
+     * An instance runs one search at a time: starting another before this one has finished makes that one
+     * fail with an {@link IllegalStateException}. Use a separate instance to search several trees at once.
+     */
+    public SearchTask searchAsync(Tree<MCTSData> tree, SearchLimits limits, CancellationToken token)
+    {
+        // The search reports progress to its own task, which only exists once the callable has been created
+        SearchTask[] handle = new SearchTask[1];
+        SearchTask task = new SearchTask(() -> search(tree, limits, token, handle[0]));
+        handle[0] = task;
+
+        Thread thread = new Thread(task, "mcts-search");
+        thread.setDaemon(true);
+        thread.start();
+
+        return task;
+    }
+
+    /**
+     * Returns the best root move of the running (or last finished) budgeted search of this instance.
+     * Safe to call from any thread at any moment; returns null before the first simulation.
+     * To follow one particular background search, use {@link SearchTask#getBestMoveSoFar()}.
+     */
+    public String getBestMoveSoFar() { return bestMoveSoFar; }
+
+    /**
+     * Returns a proven winning move if there is one, otherwise the most visited move that is not a proven loss
+     * (or the most visited move overall, if every move is lost).
+     */
+    private String mostVisitedMove(TreeNode<MCTSData> root)
+    {
+        TreeNode<MCTSData> best = null;
+
+        for (TreeNode<MCTSData> child : root.getChildren().asIterable())
+        {
+            MCTSData data = child.getValue();
+            if (data.getProvenResult() == ProvenResult.WIN) return data.getMove();
+
+            if (best == null || isPreferred(data, best.getValue()))
+            {
+                best = child;
+            }
+        }
+
+        return (best == null) ? null : best.getValue().getMove();
+    }
+
+    private boolean isPreferred(MCTSData candidate, MCTSData best)
+    {
+        boolean candidateLost = candidate.getProvenResult() == ProvenResult.LOSS;
+        boolean bestLost = best.getProvenResult() == ProvenResult.LOSS;
+
+        if (candidateLost != bestLost) return bestLost;
+        return candidate.getVisits() > best.getVisits();
+    }
+
+    /**
+     * Estimates how many more simulations the search can run, based on its simulation limit
+     * and the simulation rate so far measured against the time limit.
+     */
+    private long remainingSimulations(SearchLimits limits, long simulations, long elapsed, long timeBudget)
+    {
+        long remaining = SearchLimits.UNLIMITED;
+
+        if (limits.hasSimulationLimit())
+        {
+            remaining = limits.getMaxSimulations() - simulations;
+        }
+
+        if (limits.hasTimeLimit() && elapsed > 0)
+        {
+            double simulationsPerNano = (double) simulations / elapsed;
+            remaining = Math.min(remaining, (long) ((timeBudget - elapsed) * simulationsPerNano));
+        }
+
+        return remaining;
+    }
+
+    /**
+     * The search is decided when the root only has a single move, when the root's value is proven or one of its
+     * moves is a proven win, or when the most visited move leads the runner-up by more visits than the search
+     * has left to spend.
+     */
+    private boolean isDecided(TreeNode<MCTSData> root, long remainingSimulations)
+    {
+        MCTSData rootData = root.getValue();
+        int moveCount = root.getChildren().size() + rootData.getUntriedMoveCount();
+        if (moveCount == 1 || rootData.isProven()) return true;
+
+        int best = 0;
+        int secondBest = 0;
 
-        for (TreeNode<MCTSData> child : children.asIterable())
+        for (TreeNode<MCTSData> child : root.getChildren().asIterable())
         {
-            double winRateChild = child.getValue().getVisits() > 0
-                    ? child.getValue().getWins() / child.getValue().getVisits()
-                    : 0;
+            if (child.getValue().getProvenResult() == ProvenResult.WIN) return true;
 
-            int index = 0;
-            boolean inserted = false;
+            int visits = child.getValue().getVisits();
 
-            for (TreeNode<MCTSData> s : sorted.asIterable())
+            if (visits > best)
             {
-                double winRateS = s.getValue().getVisits() > 0
-                        ? s.getValue().getWins() / s.getValue().getVisits()
-                        : 0;
+                secondBest = best;
+                best = visits;
+            }
+            else if (visits > secondBest)
+            {
+                secondBest = visits;
+            }
+        }
+
+        return best - secondBest > remainingSimulations;
+    }
 
-                if (winRateChild > winRateS)
+    /**
+     * Advances the tree by a move that has been played on the board, by either side.
+     * The child matching the move becomes the new root and keeps all of its statistics, so the next
+     * search starts warm. Every other branch is detached and left for the garbage collector.
+     * @param tree The search tree, rooted at the position before the move.
+     * @param moveSAN The move that was played, in SAN notation.
+     * @throws IllegalArgumentException If the move is not legal in the root position.
+     */
+    public void advanceRoot(Tree<MCTSData> tree, String moveSAN)
+    {
+        TreeNode<MCTSData> root = tree.getRoot();
+        TreeNode<MCTSData> child = findChild(root, moveSAN);
+
+        // The move may not have been expanded yet, in which case it is created from the untried list
+        if (child == null && !root.getValue().getState().isGameOver())
+        {
+            ensureMovesGenerated(root);
+
+            MCTSData rootData = root.getValue();
+            Chessboard board = rootData.getState().getBoard();
+
+            for (int i = 0; i < rootData.getUntriedMoveCount(); i++)
+            {
+                if (board.toSAN(rootData.getUntriedMove(i)).equals(moveSAN))
                 {
-                    sorted.insert(child, index);
-                    inserted = true;
+                    child = expandMove(tree, root, i);
                     break;
                 }
-                index++;
             }
-
-            if (!inserted) sorted.append(child);
         }
 
-        LinkedList<String> rankedMoves = new LinkedList<>();
-        for (TreeNode<MCTSData> node : sorted.asIterable())
+        if (child == null)
         {
-            rankedMoves.append(node.getValue().getMove());
+            throw new IllegalArgumentException("Move is not legal in the root position: " + moveSAN);
         }
 
-        return rankedMoves;
+        tree.reRoot(child);
+
+        // Positions only reached through the detached branches would otherwise keep their statistics
+        if (transpositionTable != null)
+        {
+            if (tableRoot == root) retainLivePositions(tree);
+            else transpositionTable.clear();
+        }
+        tableRoot = child;
     }
 
-    public String findBestMove(Tree<MCTSData> tree, int simulations)
+    /**
+     * Ties the transposition table to the tree being searched. Searching a tree with a different root than
+     * the last one clears the table, since expanding a node would otherwise pull in the other tree's statistics
+     * and leave parents with fewer visits than their children.
+     */
+    private void useTree(Tree<MCTSData> tree)
     {
-        runSimulations(tree, simulations);
-
-        LinkedList<String> rankedMoves = getRankedMoves(tree);
+        if (transpositionTable != null && tableRoot != tree.getRoot()) transpositionTable.clear();
+        tableRoot = tree.getRoot();
+    }
 
-        return rankedMoves.isEmpty() ? null : rankedMoves.get(0);
+    private TreeNode<MCTSData> findChild(TreeNode<MCTSData> node, String moveSAN)
+    {
+        for (TreeNode<MCTSData> child : node.getChildren().asIterable())
+        {
+            if (moveSAN.equals(child.getValue().getMove())) return child;
+        }
+        return null;
     }
 
     /**
-     * 1. Selection: Select the next node using UCB1
+     * 1. Selection: Descend through the tree with the selection policy, stopping at the first node
+     * where a new move should be expanded (or that has no moves at all). Proven nodes are never
+     * descended into, since simulating them again cannot change their value.
+     * - UCT descends through fully expanded nodes only, so every move is tried before any is revisited.
+     * - PUCT also stops when the most likely untried move scores above every existing child.
      */
     private TreeNode<MCTSData> select(TreeNode<MCTSData> node)
     {
-        while (!node.getChildren().isEmpty())
+        while (!node.getValue().getState().isGameOver() && !node.getValue().isProven())
         {
+            ensureMovesGenerated(node);
+
+            if (selectionPolicy == SelectionPolicy.PUCT)
+            {
+                TreeNode<MCTSData> child = bestPUCTChild(node);
+                if (child == null) break;
+
+                node = child;
+                continue;
+            }
+
+            if (!node.getValue().isFullyExpanded() || node.getChildren().isEmpty()) break;
+
             node = bestUCTChild(node);
         }
         return node;
@@ -99,9 +544,14 @@ public class MonteCarloTreeSearch
     {
         double bestValue = Double.NEGATIVE_INFINITY;
         TreeNode<MCTSData> selectedNode = null;
+        DynamicArray<TreeNode<MCTSData>> children = node.getChildren();
 
-        for (TreeNode<MCTSData> child : node.getChildren().asIterable())
+        // Indexed rather than iterated, so selection does not allocate an iterator per tree level
+        for (int i = 0; i < children.size(); i++)
         {
+            TreeNode<MCTSData> child = children.get(i);
+            if (child.getValue().isProven()) continue;
+
             double uctValue = uctValue(child, node);
             if (uctValue > bestValue)
             {
@@ -121,42 +571,324 @@ public class MonteCarloTreeSearch
         double winRate = child.getValue().getWins() / childVisits;
         double explore = Math.sqrt(Math.log(parent.getValue().getVisits() + 1) / childVisits);
 
-        return winRate + EXPLORATION_PARAMETER * explore;
+        return winRate + explorationConstant * explore;
     }
 
     /**
-     * 2. Expansion
+     * Picks the child with the highest PUCT score, or returns null if the node's best untried move
+     * (the one with the highest prior, see {@link #expand}) scores at least as high.
      */
-    private TreeNode<MCTSData> expand(TreeNode<MCTSData> node)
+    private TreeNode<MCTSData> bestPUCTChild(TreeNode<MCTSData> node)
     {
-        // If at a leaf node, the algorithm is already at max expansion
-        if (node.getChildren().isEmpty()) return node;
+        MCTSData data = node.getValue();
+        double explorationScale = explorationConstant * Math.sqrt(Math.max(1, data.getVisits()));
 
-        // Pick one unvisited child (or just random if they all have been visited)
-        TreeNode<MCTSData> bestNode = null;
-        for (TreeNode<MCTSData> child : node.getChildren().asIterable())
+        // First-play urgency: unvisited moves are assumed to be worth what the position is worth to their mover
+        double firstPlayValue = data.getVisits() > 0 ? 1 - data.getWins() / data.getVisits() : 0.5;
+
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int bestUntried = bestUntriedMove(data);
+        if (bestUntried >= 0)
+        {
+            bestValue = firstPlayValue + explorationScale * data.getUntriedPrior(bestUntried);
+        }
+
+        TreeNode<MCTSData> selectedNode = null;
+        DynamicArray<TreeNode<MCTSData>> children = node.getChildren();
+
+        for (int i = 0; i < children.size(); i++)
+        {
+            TreeNode<MCTSData> child = children.get(i);
+            MCTSData childData = child.getValue();
+            if (childData.isProven()) continue;
+
+            int childVisits = childData.getVisits();
+            double value = (childVisits > 0) ? childData.getWins() / childVisits : firstPlayValue;
+            double puctValue = value + explorationScale * childData.getPrior() / (1 + childVisits);
+
+            if (puctValue > bestValue)
+            {
+                bestValue = puctValue;
+                selectedNode = child;
+            }
+        }
+        return selectedNode;
+    }
+
+    /**
+     * @return The index of the untried move with the highest prior, or -1 if there are no untried moves.
+     */
+    private int bestUntriedMove(MCTSData data)
+    {
+        int best = -1;
+
+        for (int i = 0; i < data.getUntriedMoveCount(); i++)
         {
-            if (child.getValue().getVisits() == 0) return child;
+            if (best < 0 || data.getUntriedPrior(i) > data.getUntriedPrior(best)) best = i;
         }
+        return best;
+    }
+
+    /**
+     * 2. Expansion: Create a single child for one untried move: the one with the highest prior if the node has
+     * priors, otherwise a random one.
+     * Nodes are only ever expanded one child per visit, so the tree grows towards the lines the
+     * selection step keeps returning to, instead of being built full-width up front.
+     */
+    private TreeNode<MCTSData> expand(Tree<MCTSData> tree, TreeNode<MCTSData> node)
+    {
+        MCTSData data = node.getValue();
+
+        // Terminal and proven positions are not expanded
+        if (data.getState().isGameOver() || data.isProven()) return node;
+
+        // Pruning could not make room, so the node is simulated without adding a child
+        if (tree.size() >= maxTreeNodes) return node;
+
+        ensureMovesGenerated(node);
+
+        if (data.getUntriedMoveCount() == 0) return node;
 
-        // If all children have been visited, pick a random node
-        LinkedList<TreeNode<MCTSData>> children = node.getChildren();
-        return children.get(new Random().nextInt(children.size()));
+        int index = data.hasPriors() ? bestUntriedMove(data) : random.nextInt(data.getUntriedMoveCount());
+        return expandMove(tree, node, index);
+    }
+
+    /**
+     * Removes the untried move at the given index and adds it to the tree as a child of the node.
+     */
+    private TreeNode<MCTSData> expandMove(Tree<MCTSData> tree, TreeNode<MCTSData> node, int index)
+    {
+        MCTSData data = node.getValue();
+        float prior = data.getUntriedPrior(index);
+        int move = data.removeUntriedMove(index);
+
+        String moveSAN = data.getState().getBoard().toSAN(move);
+        Game childGame = new Game(data.getState());
+        childGame.makeMove(move);
+
+        // A position already reached through another move order starts with its existing statistics
+        NodeStatistics statistics = (transpositionTable != null)
+                ? transpositionTable.getOrCreate(childGame.getPositionHash())
+                : new NodeStatistics();
+
+        MCTSData childData = new MCTSData(childGame, moveSAN, childGame.getCurrentTurn(), statistics);
+        childData.setPrior(prior);
+        childData.setMoveCode(move);
+        return tree.addChild(node, childData);
+    }
+
+    /**
+     * Shrinks the tree below the node cap by removing the least visited subtrees. The root's own children
+     * are kept, since the move choice is read from them. Each pruned move goes back on its parent's untried
+     * list so it can be expanded again later, and transposition table entries that no node reaches any
+     * more are dropped.
+     */
+    private void pruneTree(Tree<MCTSData> tree)
+    {
+        int target = (int) (maxTreeNodes * PRUNE_TARGET);
+
+        List<TreeNode<MCTSData>> candidates = new ArrayList<>();
+        LinkedList<TreeNode<MCTSData>> queue = new LinkedList<>();
+        for (TreeNode<MCTSData> child : tree.getRoot().getChildren().asIterable()) queue.append(child);
+
+        while (!queue.isEmpty())
+        {
+            for (TreeNode<MCTSData> child : queue.pop().getChildren().asIterable())
+            {
+                candidates.add(child);
+                queue.append(child);
+            }
+        }
+
+        candidates.sort(Comparator.comparingInt(node -> node.getValue().getVisits()));
+
+        for (TreeNode<MCTSData> node : candidates)
+        {
+            if (tree.size() <= target) break;
+
+            // Already removed along with a pruned ancestor
+            if (node.getValue() == null) continue;
+
+            returnToUntried(node.getParent(), node.getValue());
+            tree.removeSubtree(node);
+        }
+
+        if (transpositionTable != null && transpositionTable.size() > tree.size()) retainLivePositions(tree);
+    }
+
+    /**
+     * Drops the transposition table entries of positions that no node in the tree reaches any more.
+     */
+    private void retainLivePositions(Tree<MCTSData> tree)
+    {
+        Set<Long> liveHashes = new HashSet<>();
+        for (TreeNode<MCTSData> node : tree.preOrder())
+        {
+            liveHashes.add(node.getValue().getState().getPositionHash());
+        }
+
+        transpositionTable.retainAll(liveHashes);
+    }
+
+    private void returnToUntried(TreeNode<MCTSData> parent, MCTSData childData)
+    {
+        MCTSData parentData = parent.getValue();
+
+        // Moves not generated yet will leave out only the children that still exist
+        if (!parentData.hasGeneratedMoves()) return;
+
+        int move = childData.getMoveCode();
+        if (move == Move.NONE)
+        {
+            Chessboard board = parentData.getState().getBoard();
+            for (int candidate : board.generateAllPseudolegalMoves(parentData.getState().getCurrentTurn()))
+            {
+                if (board.isLegalMove(candidate) && board.toSAN(candidate).equals(childData.getMove()))
+                {
+                    move = candidate;
+                    break;
+                }
+            }
+        }
+
+        parentData.addUntriedMove(move, childData.getPrior());
+    }
+
+    /**
+     * Generates the untried move list of a node the first time it is needed, along with the move priors
+     * if PUCT selection is used. Priors are computed once here, over all legal moves.
+     * Moves that already have a child node (e.g. from a pre-built tree) are left out, and only get their prior.
+     */
+    private void ensureMovesGenerated(TreeNode<MCTSData> node)
+    {
+        MCTSData data = node.getValue();
+        if (data.hasGeneratedMoves()) return;
+
+        Chessboard board = data.getState().getBoard();
+        int[] pseudolegalMoves = board.generateAllPseudolegalMoves(data.getState().getCurrentTurn());
+
+        int[] legalMoves = new int[pseudolegalMoves.length];
+        int count = 0;
+
+        for (int move : pseudolegalMoves)
+        {
+            if (board.isLegalMove(move)) legalMoves[count++] = move;
+        }
+        legalMoves = Arrays.copyOf(legalMoves, count);
+
+        float[] priors = (selectionPolicy == SelectionPolicy.PUCT) ? rolloutPolicy.computePriors(board, legalMoves) : null;
+
+        if (node.getChildren().isEmpty())
+        {
+            data.setUntriedMoves(legalMoves, priors);
+            return;
+        }
+
+        int[] untriedMoves = new int[count];
+        float[] untriedPriors = (priors == null) ? null : new float[count];
+        int untriedCount = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            TreeNode<MCTSData> child = findChild(node, board.toSAN(legalMoves[i]));
+
+            if (child != null)
+            {
+                if (priors != null) child.getValue().setPrior(priors[i]);
+                continue;
+            }
+
+            untriedMoves[untriedCount] = legalMoves[i];
+            if (priors != null) untriedPriors[untriedCount] = priors[i];
+            untriedCount++;
+        }
+
+        data.setUntriedMoves(Arrays.copyOf(untriedMoves, untriedCount),
+                (priors == null) ? null : Arrays.copyOf(untriedPriors, untriedCount));
     }
 
     /**
      * 3. Simulation (pseudorandom playout from this node)
+     * Rollouts are played directly on boards with the cheap {@link RolloutPolicy}; the leaf
+     * evaluator is only used to score the position where the rollout stops.
+     * @return 1 if the player to move at the node won, 0 for a loss and 0.5 for a draw,
+     * or the heuristic estimate between 0 and 1 if the game did not finish.
      */
     private double simulate(TreeNode<MCTSData> node)
     {
-        Game game = new Game(node.getValue().getState());
-        Piece.Colour playerColour = node.getValue().getPlayerToMove();
+        Leaf leaf = playOut(node);
 
-        HeuristicEvaluator evaluator = new HeuristicEvaluator();
-        double r = random.nextDouble();
+        if (leaf.board != null) leaf.result = heuristicResult(evaluator.evaluate(leaf.board, leaf.player));
+        leaf.releaseBoard();
+        return leaf.result;
+    }
+
+    /**
+     * Plays the rollout of a simulation, leaving the final position unscored if the game did not finish.
+     * Rollout boards come from the thread's {@link ChessboardPool}; each one is released as soon as the next
+     * ply has been played, and the final one once the leaf has been scored.
+     */
+    private Leaf playOut(TreeNode<MCTSData> node)
+    {
+        Piece.Colour player = node.getValue().getPlayerToMove();
+
+        if (node.getValue().isProven()) return new Leaf(node, node.getValue().getProvenResult().resultForPlayerToMove());
+
+        if (fullEvaluationRollouts) return playOutWithFullEvaluation(node);
+
+        Game state = node.getValue().getState();
 
-        // Random playout to the end
-        // TODO fix so that it's not random playout, but less computationally intensive
+        if (state.isGameOver()) return new Leaf(node, gameResult(state, player));
+
+        ChessboardPool pool = ChessboardPool.get();
+        Chessboard board = state.getBoard();
+        Piece.Colour colour = player;
+        int halfMoveClock = state.getHalfMoveClock();
+
+        for (int d = 0; d < MAX_PLAYOUT_DEPTH; d++)
+        {
+            Chessboard next = rolloutPolicy.playMove(board, colour, random, pool);
+
+            if (next == null)
+            {
+                // No legal moves: checkmate loses for the side to move, stalemate is a draw
+                boolean inCheck = board.isInCheck(colour);
+                if (board != state.getBoard()) pool.release(board);
+
+                if (!inCheck) return new Leaf(node, 0.5);
+                return new Leaf(node, (colour == player) ? 0 : 1);
+            }
+
+            // A capture or pawn move (including a promotion) changes the pawns or the piece count
+            boolean resetsClock = next.getPawnHash() != board.getPawnHash() || next.getPieceCount() < board.getPieceCount();
+            halfMoveClock = resetsClock ? 0 : halfMoveClock + 1;
+
+            // The node's own board is never pooled
+            if (board != state.getBoard()) pool.release(board);
+
+            board = next;
+            colour = (colour == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
+
+            // Like Game, checkmate and stalemate take precedence over the fifty-move rule
+            if (halfMoveClock >= FIFTY_MOVE_PLIES && board.hasLegalMove(colour))
+            {
+                pool.release(board);
+                return new Leaf(node, 0.5);
+            }
+        }
+
+        if (board == state.getBoard()) return new Leaf(node, board, player);
+        return new Leaf(node, board, player, pool);
+    }
+
+    /**
+     * The original rollout, which scores every candidate move with a full heuristic evaluation.
+     * Much slower than {@link #playOut}, but kept for comparison, see {@link #setFullEvaluationRollouts}.
+     */
+    private Leaf playOutWithFullEvaluation(TreeNode<MCTSData> node)
+    {
+        Game game = new Game(node.getValue().getState());
+        Piece.Colour playerColour = node.getValue().getPlayerToMove();
 
         for (int d = 0; d < MAX_PLAYOUT_DEPTH && !game.isGameOver(); d++)
         {
@@ -171,33 +903,68 @@ public class MonteCarloTreeSearch
             playerColour = (playerColour == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
         }
 
-        // Output score: 1 if our player won, 0 for loss, 0.5 for draw
         // If game doesn't end, evaluate stronger position
-        Piece.Colour winner = game.getWinner();
+        if (game.isGameOver()) return new Leaf(node, gameResult(game, node.getValue().getPlayerToMove()));
+
+        return new Leaf(node, game.getBoard(), node.getValue().getPlayerToMove());
+    }
 
-        if (game.isGameOver())
+    /**
+     * Scores the final positions of all unfinished rollouts in one evaluator call.
+     */
+    private void evaluateLeaves(List<Leaf> leaves)
+    {
+        List<Leaf> unscored = new ArrayList<>();
+        for (Leaf leaf : leaves)
         {
-            if (winner == null) return 0.5; // true draw
-            return (winner == node.getValue().getPlayerToMove()) ? 1 : 0;
+            if (leaf.board != null) unscored.add(leaf);
         }
-        else
+        if (unscored.isEmpty()) return;
+
+        Chessboard[] boards = new Chessboard[unscored.size()];
+        Piece.Colour[] players = new Piece.Colour[unscored.size()];
+        for (int i = 0; i < boards.length; i++)
         {
-            // Max depth reached, game not finished: use heuristic
-            double score = evaluator.evaluate(game.getBoard(), node.getValue().getPlayerToMove());
-            return 0.5 + 0.5 * Math.tanh(score / 10); // hyperbolic tangent function
+            boards[i] = unscored.get(i).board;
+            players[i] = unscored.get(i).player;
         }
+
+        double[] scores = evaluator.evaluateBatch(boards, players);
+        for (int i = 0; i < scores.length; i++) unscored.get(i).result = heuristicResult(scores[i]);
+    }
+
+    /**
+     * Output score: 1 if the player won, 0 for loss, 0.5 for draw
+     */
+    private double gameResult(Game game, Piece.Colour player)
+    {
+        Piece.Colour winner = game.getWinner();
+
+        if (winner == null) return 0.5; // true draw
+        return (winner == player) ? 1 : 0;
     }
 
-    private Pair<String, Chessboard> selectMovePseudorandomly(List<Pair<String, Chessboard>> legalMoves, HeuristicEvaluator evaluator, Piece.Colour playerColour, Random random)
+    /**
+     * Max depth reached, game not finished: map the heuristic score to (0, 1)
+     */
+    private double heuristicResult(double score)
     {
-        double[] weights = new double[legalMoves.size()];
+        return 0.5 + 0.5 * Math.tanh(score / 10); // hyperbolic tangent function
+    }
+
+    private Pair<String, Chessboard> selectMovePseudorandomly(List<Pair<String, Chessboard>> legalMoves, IEvaluator evaluator, Piece.Colour playerColour, Random random)
+    {
+        Chessboard[] boards = new Chessboard[legalMoves.size()];
+        for (int i = 0; i < boards.length; i++) boards[i] = legalMoves.get(i).getValue();
+
+        // Every candidate of the ply is scored in one batch
+        double[] weights = evaluator.evaluateBatch(boards, playerColour);
         double sumWeights = 0;
 
         // Compute softmax probabilities
-        for (int i = 0; i < legalMoves.size(); i++)
+        for (int i = 0; i < weights.length; i++)
         {
-            double score = evaluator.evaluate(legalMoves.get(i).getValue(), playerColour);
-            weights[i] = Math.exp(score / ROLLOUT_TEMPERATURE);
+            weights[i] = Math.exp(weights[i] / ROLLOUT_TEMPERATURE);
             sumWeights += weights[i];
         }
 
@@ -218,14 +985,150 @@ public class MonteCarloTreeSearch
 
     /**
      * 4. Backpropagation
+     * Each node stores its wins from the perspective of the player who made the move into it,
+     * so the result is flipped for nodes where the other player made the move.
+     * Statistics shared through the transposition table are updated once per simulation, even if the
+     * path repeats a position.
+     * @param countVisits False if the visits were already counted by {@link #addVisits} when the leaf was collected.
      */
-    private void backpropagate(TreeNode<MCTSData> node, double result)
+    private void backpropagate(TreeNode<MCTSData> node, double result, boolean countVisits)
     {
+        MCTSData leaf = node.getValue();
+        if (!leaf.isProven() && leaf.getState().isGameOver())
+        {
+            leaf.setProvenResult(terminalResult(leaf));
+            propagateProof(node.getParent());
+        }
+
+        Piece.Colour resultPlayer = node.getValue().getPlayerToMove();
+        List<NodeStatistics> updated = new ArrayList<>();
+
         while (node != null)
         {
-            node.getValue().incrementVisits();
-            node.getValue().addWin(result);
+            MCTSData data = node.getValue();
+            NodeStatistics statistics = data.getStatistics();
+
+            if (!containsInstance(updated, statistics))
+            {
+                if (countVisits) statistics.incrementVisits();
+                statistics.addWin(data.getPlayerToMove() == resultPlayer ? 1 - result : result);
+                updated.add(statistics);
+            }
+
+            node = node.getParent();
+        }
+    }
+
+    /**
+     * Counts a visit on every node from the leaf up to the root, ahead of its result (a virtual loss).
+     */
+    private void addVisits(TreeNode<MCTSData> node)
+    {
+        List<NodeStatistics> updated = new ArrayList<>();
+
+        for (; node != null; node = node.getParent())
+        {
+            NodeStatistics statistics = node.getValue().getStatistics();
+            if (containsInstance(updated, statistics)) continue;
+
+            statistics.incrementVisits();
+            updated.add(statistics);
+        }
+    }
+
+    /**
+     * A finished game is a win for the player who moved into it if they delivered checkmate, otherwise a draw.
+     */
+    private ProvenResult terminalResult(MCTSData data)
+    {
+        Piece.Colour winner = data.getState().getWinner();
+
+        if (winner == null) return ProvenResult.DRAW;
+        return (winner == data.getPlayerToMove()) ? ProvenResult.LOSS : ProvenResult.WIN;
+    }
+
+    /**
+     * MCTS-Solver proof propagation, walking up from the parent of a newly proven node.
+     * The children of a node are moves by its player to move, i.e. the opponent of the node's mover:
+     * - if any child is a proven win, the node is a proven loss;
+     * - if all moves are expanded and proven, the node is a draw if any child is a draw, otherwise a win.
+     * Stops at the first node whose value cannot be proven yet.
+     */
+    private void propagateProof(TreeNode<MCTSData> node)
+    {
+        while (node != null && !node.getValue().isProven())
+        {
+            ProvenResult proof = deriveProof(node);
+            if (proof == ProvenResult.UNKNOWN) return;
+
+            node.getValue().setProvenResult(proof);
             node = node.getParent();
         }
     }
+
+    private ProvenResult deriveProof(TreeNode<MCTSData> node)
+    {
+        boolean allProven = node.getValue().isFullyExpanded();
+        boolean anyDraw = false;
+
+        for (TreeNode<MCTSData> child : node.getChildren().asIterable())
+        {
+            switch (child.getValue().getProvenResult())
+            {
+                case WIN -> { return ProvenResult.LOSS; }
+                case DRAW -> anyDraw = true;
+                case UNKNOWN -> allProven = false;
+                case LOSS -> { }
+            }
+        }
+
+        if (!allProven) return ProvenResult.UNKNOWN;
+        return anyDraw ? ProvenResult.DRAW : ProvenResult.WIN;
+    }
+
+    private static boolean containsInstance(List<NodeStatistics> list, NodeStatistics statistics)
+    {
+        for (NodeStatistics s : list)
+        {
+            if (s == statistics) return true;
+        }
+        return false;
+    }
+
+    /**
+     * The outcome of one simulation: either a known result, or a final position still waiting to be scored.
+     */
+    private static class Leaf
+    {
+        private final TreeNode<MCTSData> node;
+        private final Chessboard board;
+        private final Piece.Colour player;
+        // The pool the board has to go back to once scored, or null if it is not pooled
+        private final ChessboardPool pool;
+        private double result;
+
+        Leaf(TreeNode<MCTSData> node, double result)
+        {
+            this(node, null, null);
+            this.result = result;
+        }
+
+        Leaf(TreeNode<MCTSData> node, Chessboard board, Piece.Colour player)
+        {
+            this(node, board, player, null);
+        }
+
+        Leaf(TreeNode<MCTSData> node, Chessboard board, Piece.Colour player, ChessboardPool pool)
+        {
+            this.node = node;
+            this.board = board;
+            this.player = player;
+            this.pool = pool;
+        }
+
+        void releaseBoard()
+        {
+            if (pool != null) pool.release(board);
+        }
+    }
 }
@@ -0,0 +1,48 @@
+package project.chess.mcts;
+
+/**
+ * A snapshot of one root move's search statistics, as returned by {@link MonteCarloTreeSearch#getTopMoves}.
+ * Win rates are from the perspective of the player making the move.
+ */
+
+public class MoveStatistics
+{
+    private final String move;
+    private final int visits;
+    private final double wins;
+    private final float prior;
+    private final ProvenResult provenResult;
+
+    public MoveStatistics(String move, int visits, double wins, float prior, ProvenResult provenResult)
+    {
+        this.move = move;
+        this.visits = visits;
+        this.wins = wins;
+        this.prior = prior;
+        this.provenResult = provenResult;
+    }
+
+    static MoveStatistics of(MCTSData data)
+    {
+        return new MoveStatistics(data.getMove(), data.getVisits(), data.getWins(), data.getPrior(), data.getProvenResult());
+    }
+
+    public String getMove() { return move; }
+
+    public int getVisits() { return visits; }
+
+    public double getWins() { return wins; }
+
+    public double getWinRate() { return visits > 0 ? wins / visits : 0; }
+
+    public float getPrior() { return prior; }
+
+    public ProvenResult getProvenResult() { return provenResult; }
+
+    @Override
+    public String toString()
+    {
+        String result = String.format("%s [%.3f over %d visits]", move, getWinRate(), visits);
+        return (provenResult == ProvenResult.UNKNOWN) ? result : result + " " + provenResult;
+    }
+}
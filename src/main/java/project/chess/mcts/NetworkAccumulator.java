@@ -0,0 +1,98 @@
+package project.chess.mcts;
+
+import project.chess.model.Chessboard;
+import project.chess.model.IFeatureAccumulator;
+import project.chess.model.Zobrist;
+import project.chess.piece.Piece;
+
+/**
+ * The hidden layer of a {@link NetworkEvaluator}, before its activation, for both sides' perspectives.
+ * Placing or removing a piece only adds or subtracts that feature's weights, so keeping it attached to a
+ * {@link Chessboard} costs two vector additions per changed square instead of a full pass over the board.
+ * Black's perspective mirrors the board vertically and swaps the colours, so both sides see "their" pieces
+ * as White pieces moving up the board.
+ */
+
+public class NetworkAccumulator implements IFeatureAccumulator
+{
+    private static final int COLOUR_OFFSET = NetworkWeights.FEATURE_COUNT / 2 / Chessboard.BOARD_SIZE;
+
+    private final NetworkWeights weights;
+    private final INetworkKernels kernels;
+    private final short[] white;
+    private final short[] black;
+
+    public NetworkAccumulator(NetworkWeights weights, INetworkKernels kernels)
+    {
+        this.weights = weights;
+        this.kernels = kernels;
+        this.white = new short[weights.getHiddenSize()];
+        this.black = new short[weights.getHiddenSize()];
+        reset();
+    }
+
+    private NetworkAccumulator(NetworkAccumulator other)
+    {
+        this.weights = other.weights;
+        this.kernels = other.kernels;
+        this.white = other.white.clone();
+        this.black = other.black.clone();
+    }
+
+    @Override
+    public void reset()
+    {
+        System.arraycopy(weights.getHiddenBiases(), 0, white, 0, white.length);
+        System.arraycopy(weights.getHiddenBiases(), 0, black, 0, black.length);
+    }
+
+    @Override
+    public void addPiece(Piece piece, int square)
+    {
+        int hiddenSize = white.length;
+        kernels.add(white, weights.getFeatureWeights(), whiteFeature(piece, square) * hiddenSize);
+        kernels.add(black, weights.getFeatureWeights(), blackFeature(piece, square) * hiddenSize);
+    }
+
+    @Override
+    public void removePiece(Piece piece, int square)
+    {
+        int hiddenSize = white.length;
+        kernels.subtract(white, weights.getFeatureWeights(), whiteFeature(piece, square) * hiddenSize);
+        kernels.subtract(black, weights.getFeatureWeights(), blackFeature(piece, square) * hiddenSize);
+    }
+
+    @Override
+    public NetworkAccumulator copy() { return new NetworkAccumulator(this); }
+
+    /**
+     * Copies the other accumulator's hidden layer into this one if both use the same weights.
+     */
+    @Override
+    public boolean copyFrom(IFeatureAccumulator other)
+    {
+        if (!(other instanceof NetworkAccumulator network) || network.weights != weights) return false;
+
+        System.arraycopy(network.white, 0, white, 0, white.length);
+        System.arraycopy(network.black, 0, black, 0, black.length);
+        return true;
+    }
+
+    public static int whiteFeature(Piece piece, int square)
+    {
+        return Zobrist.pieceIndex(piece) * Chessboard.BOARD_SIZE + square;
+    }
+
+    public static int blackFeature(Piece piece, int square)
+    {
+        int swappedIndex = (Zobrist.pieceIndex(piece) + COLOUR_OFFSET) % (2 * COLOUR_OFFSET);
+        return swappedIndex * Chessboard.BOARD_SIZE + (square ^ 56);
+    }
+
+    public NetworkWeights getWeights() { return weights; }
+
+    /**
+     * The hidden layer as seen by the given side. Not a copy, so it must not be modified.
+     */
+    short[] getPerspective(Piece.Colour colour) { return (colour == Piece.Colour.WHITE) ? white : black; }
+}
@@ -0,0 +1,99 @@
+package project.chess.mcts;
+
+import project.chess.model.Chessboard;
+import project.chess.model.IFeatureAccumulator;
+import project.chess.piece.Piece;
+
+/**
+ * Leaf evaluator backed by a small quantised network, see {@link NetworkWeights}.
+ * The hidden layer lives on the board as a {@link NetworkAccumulator} and is updated as moves are made, so an
+ * evaluation only runs the output layer.
+ *
+ * @details
+ * - {@link #prepare} attaches an accumulator to the given board (replacing any other), so copies made from it
+ *   afterwards inherit one. The search calls it on its root board.
+ * - {@link #evaluate} never modifies the board. Boards without an accumulator for these weights are evaluated
+ *   by filling a per-thread scratch accumulator from scratch, which costs a pass over the board.
+ */
+
+public class NetworkEvaluator implements IEvaluator
+{
+    private final NetworkWeights weights;
+    private final INetworkKernels kernels;
+    // For boards that were not prepared; one per thread, since an evaluator may be used from several threads
+    private final ThreadLocal<NetworkAccumulator> scratch;
+
+    public NetworkEvaluator(NetworkWeights weights)
+    {
+        this(weights, defaultKernels());
+    }
+
+    public NetworkEvaluator(NetworkWeights weights, INetworkKernels kernels)
+    {
+        this.weights = weights;
+        this.kernels = kernels;
+        this.scratch = ThreadLocal.withInitial(() -> new NetworkAccumulator(weights, kernels));
+    }
+
+    /**
+     * Returns the Vector API kernels if the {@code jdk.incubator.vector} module is loaded, or the scalar ones.
+     */
+    public static INetworkKernels defaultKernels()
+    {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return new ScalarNetworkKernels();
+
+        try
+        {
+            return new VectorNetworkKernels();
+        }
+        catch (LinkageError e)
+        {
+            return new ScalarNetworkKernels();
+        }
+    }
+
+    @Override
+    public double evaluate(Chessboard board, Piece.Colour playerColour)
+    {
+        NetworkAccumulator accumulator = accumulatorFor(board);
+        Piece.Colour opponent = (playerColour == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
+
+        short[] outputWeights = weights.getOutputWeights();
+        long output = kernels.clampedDot(accumulator.getPerspective(playerColour), outputWeights, 0, NetworkWeights.QA)
+                + kernels.clampedDot(accumulator.getPerspective(opponent), outputWeights, weights.getHiddenSize(), NetworkWeights.QA)
+                + weights.getOutputBias();
+
+        double centipawns = (double) output * NetworkWeights.SCALE / (NetworkWeights.QA * NetworkWeights.QB);
+        return centipawns / 100;
+    }
+
+    /**
+     * Attaches an accumulator for these weights to the board, unless it already carries one.
+     */
+    @Override
+    public void prepare(Chessboard board)
+    {
+        if (attachedAccumulator(board) == null) board.attachAccumulator(new NetworkAccumulator(weights, kernels));
+    }
+
+    private NetworkAccumulator accumulatorFor(Chessboard board)
+    {
+        NetworkAccumulator accumulator = attachedAccumulator(board);
+        if (accumulator != null) return accumulator;
+
+        accumulator = scratch.get();
+        board.fillAccumulator(accumulator);
+        return accumulator;
+    }
+
+    private NetworkAccumulator attachedAccumulator(Chessboard board)
+    {
+        IFeatureAccumulator attached = board.getAccumulator();
+        if (attached instanceof NetworkAccumulator accumulator && accumulator.getWeights() == weights) return accumulator;
+        return null;
+    }
+
+    public NetworkWeights getWeights() { return weights; }
+
+    public boolean isVectorized() { return kernels.isVectorized(); }
+}
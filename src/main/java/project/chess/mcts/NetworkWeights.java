@@ -0,0 +1,151 @@
+package project.chess.mcts;
+
+import project.chess.model.Chessboard;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Quantised weights of a small evaluation network: 768 piece-square inputs, one hidden layer seen from both
+ * sides' perspectives, and a single output.
+ *
+ * @details
+ * - Input features are one per (piece type, colour, square), see {@link NetworkAccumulator}. The first layer's
+ *   weights and biases are 16-bit integers, scaled by {@link #QA}.
+ * - The output layer takes the side to move's hidden layer followed by the opponent's, so it has
+ *   {@code 2 * hiddenSize} weights. These are 8-bit integers scaled by {@link #QB}, widened to shorts in memory.
+ * - Files are little-endian: the magic number, the hidden size, the feature weights (feature by feature),
+ *   the hidden biases, the output weights (one byte each) and the output bias (an int).
+ */
+
+public class NetworkWeights
+{
+    public static final int FEATURE_COUNT = 12 * Chessboard.BOARD_SIZE;
+    // Quantisation of the hidden layer (also its clipped ReLU ceiling) and of the output weights
+    public static final int QA = 255;
+    public static final int QB = 64;
+    // Converts the network's output to centipawns
+    public static final int SCALE = 400;
+
+    private static final int MAGIC = 0x314E4E43; // "CNN1"
+
+    private final int hiddenSize;
+    private final short[] featureWeights;
+    private final short[] hiddenBiases;
+    private final short[] outputWeights;
+    private final int outputBias;
+
+    /**
+     * @param featureWeights {@code FEATURE_COUNT * hiddenSize} weights, the hidden weights of feature 0 first.
+     * @param hiddenBiases {@code hiddenSize} biases.
+     * @param outputWeights {@code 2 * hiddenSize} weights, each within the range of a byte.
+     * @throws IllegalArgumentException If an array has the wrong length or an output weight is out of range.
+     */
+    public NetworkWeights(int hiddenSize, short[] featureWeights, short[] hiddenBiases, short[] outputWeights, int outputBias)
+    {
+        if (hiddenSize <= 0) throw new IllegalArgumentException("Hidden size must be positive");
+        if (featureWeights.length != FEATURE_COUNT * hiddenSize) throw new IllegalArgumentException("Expected " + FEATURE_COUNT * hiddenSize + " feature weights");
+        if (hiddenBiases.length != hiddenSize) throw new IllegalArgumentException("Expected " + hiddenSize + " hidden biases");
+        if (outputWeights.length != 2 * hiddenSize) throw new IllegalArgumentException("Expected " + 2 * hiddenSize + " output weights");
+
+        for (short weight : outputWeights)
+        {
+            if (weight < Byte.MIN_VALUE || weight > Byte.MAX_VALUE)
+            {
+                throw new IllegalArgumentException("Output weight out of 8-bit range: " + weight);
+            }
+        }
+
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.hiddenBiases = hiddenBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads weights from a file in the format described above.
+     * @throws IllegalArgumentException If the file is not a weights file or is truncated.
+     */
+    public static NetworkWeights load(Path path) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+
+        try
+        {
+            if (buffer.getInt() != MAGIC) throw new IllegalArgumentException("Not a network weights file: " + path);
+
+            int hiddenSize = buffer.getInt();
+            if (hiddenSize <= 0) throw new IllegalArgumentException("Invalid hidden size in " + path + ": " + hiddenSize);
+
+            short[] featureWeights = new short[FEATURE_COUNT * hiddenSize];
+            buffer.asShortBuffer().get(featureWeights);
+            buffer.position(buffer.position() + 2 * featureWeights.length);
+
+            short[] hiddenBiases = new short[hiddenSize];
+            buffer.asShortBuffer().get(hiddenBiases);
+            buffer.position(buffer.position() + 2 * hiddenBiases.length);
+
+            short[] outputWeights = new short[2 * hiddenSize];
+            for (int i = 0; i < outputWeights.length; i++) outputWeights[i] = buffer.get();
+
+            int outputBias = buffer.getInt();
+            if (buffer.hasRemaining()) throw new IllegalArgumentException("Unexpected data after the weights in " + path);
+
+            return new NetworkWeights(hiddenSize, featureWeights, hiddenBiases, outputWeights, outputBias);
+        }
+        catch (BufferUnderflowException e)
+        {
+            throw new IllegalArgumentException("Truncated network weights file: " + path);
+        }
+    }
+
+    public void save(Path path) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 2 * featureWeights.length + 2 * hiddenSize + 2 * hiddenSize + 4)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(hiddenSize);
+        for (short weight : featureWeights) buffer.putShort(weight);
+        for (short bias : hiddenBiases) buffer.putShort(bias);
+        for (short weight : outputWeights) buffer.put((byte) weight);
+        buffer.putInt(outputBias);
+
+        Files.write(path, buffer.array());
+    }
+
+    /**
+     * Creates untrained weights, e.g. for tests. Their scores are arbitrary but deterministic for a seed.
+     */
+    public static NetworkWeights random(int hiddenSize, long seed)
+    {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        short[] featureWeights = new short[FEATURE_COUNT * hiddenSize];
+        for (int i = 0; i < featureWeights.length; i++) featureWeights[i] = (short) random.nextInt(-32, 33);
+
+        short[] hiddenBiases = new short[hiddenSize];
+        for (int i = 0; i < hiddenSize; i++) hiddenBiases[i] = (short) random.nextInt(0, 64);
+
+        short[] outputWeights = new short[2 * hiddenSize];
+        for (int i = 0; i < outputWeights.length; i++) outputWeights[i] = (short) random.nextInt(-127, 128);
+
+        return new NetworkWeights(hiddenSize, featureWeights, hiddenBiases, outputWeights, random.nextInt(-1000, 1001));
+    }
+
+    public int getHiddenSize() { return hiddenSize; }
+
+    short[] getFeatureWeights() { return featureWeights; }
+
+    short[] getHiddenBiases() { return hiddenBiases; }
+
+    short[] getOutputWeights() { return outputWeights; }
+
+    public int getOutputBias() { return outputBias; }
+}
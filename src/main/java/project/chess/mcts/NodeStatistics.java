@@ -0,0 +1,21 @@
+package project.chess.mcts;
+
+/**
+ * Visit and win statistics of a position in the search.
+ * Tree nodes that reach the same position through different move orders share one instance
+ * (see {@link TranspositionTable}), so their samples are pooled.
+ */
+
+public class NodeStatistics
+{
+    private int visits = 0;
+    private double wins = 0.0;
+
+    public int getVisits() { return visits; }
+
+    public double getWins() { return wins; }
+
+    public void incrementVisits() { visits++; }
+
+    public void addWin(double score) { wins += score; }
+}
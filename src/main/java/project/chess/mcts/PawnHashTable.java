@@ -0,0 +1,85 @@
+package project.chess.mcts;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of {@link PawnStructure} evaluations, keyed by the board's pawn-only Zobrist hash.
+ * Pawns move rarely compared to pieces, so sibling positions in the search almost always share a structure.
+ *
+ * @details
+ * - Collisions simply overwrite the slot (always-replace).
+ * - Each slot holds an immutable entry with both the key and the structure, written with a single reference
+ *   store, so threads sharing an evaluator never see the key of one structure paired with another.
+ */
+
+public class PawnHashTable
+{
+    private final Entry[] entries;
+    private final int indexMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param size The number of entries, rounded up to a power of two.
+     */
+    public PawnHashTable(int size)
+    {
+        if (size <= 0) throw new IllegalArgumentException("Table size must be positive");
+
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) capacity <<= 1;
+
+        entries = new Entry[capacity];
+        indexMask = capacity - 1;
+    }
+
+    /**
+     * Returns the cached structure for the pawn hash, or null if it is not cached.
+     */
+    public PawnStructure get(long pawnHash)
+    {
+        // Read the slot once, another thread may replace it in the meantime
+        Entry entry = entries[(int) pawnHash & indexMask];
+
+        if (entry != null && entry.pawnHash == pawnHash)
+        {
+            hits.increment();
+            return entry.structure;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    public void put(long pawnHash, PawnStructure structure)
+    {
+        entries[(int) pawnHash & indexMask] = new Entry(pawnHash, structure);
+    }
+
+    public int capacity() { return entries.length; }
+
+    public long getHits() { return hits.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    public double getHitRate()
+    {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return (total == 0) ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Empties the table and resets the counters. Not safe to call while other threads are using the table.
+     */
+    public void clear()
+    {
+        Arrays.fill(entries, null);
+        hits.reset();
+        misses.reset();
+    }
+
+    private record Entry(long pawnHash, PawnStructure structure) {}
+}
@@ -0,0 +1,164 @@
+package project.chess.mcts;
+
+import project.chess.model.BoardUtils;
+import project.chess.piece.Piece;
+
+import static project.chess.model.Chessboard.BOARD_SIZE;
+import static project.chess.model.Chessboard.BOARD_WIDTH;
+
+/**
+ * Evaluation of a pawn structure, worked out once from the pawn bitmasks and then kept in a {@link PawnHashTable}.
+ * The score only depends on pawn placement: passed, isolated, doubled and backward pawns.
+ * The king's pawn shield also depends on where the king is, so it is computed per call from the stored masks.
+ * All scores are in pawns, from White's point of view.
+ */
+
+public class PawnStructure
+{
+    private static final double DOUBLED_PENALTY = 0.15;
+    private static final double ISOLATED_PENALTY = 0.15;
+    private static final double BACKWARD_PENALTY = 0.1;
+    // Indexed by rank counted from the pawn's own side (1 = starting rank, 6 = one step from promoting)
+    private static final double[] PASSED_BONUS = { 0, 0.05, 0.1, 0.2, 0.35, 0.6, 1.0, 0 };
+    // Per pawn directly in front of the king (or one file aside), and per pawn one further rank up
+    private static final double SHIELD_NEAR_BONUS = 0.1;
+    private static final double SHIELD_FAR_BONUS = 0.05;
+
+    private static final long[] FILE_MASKS = new long[BOARD_WIDTH];
+    private static final long[] ADJACENT_FILE_MASKS = new long[BOARD_WIDTH];
+    // Indexed by [colour ordinal][square]: the squares ahead of a pawn on its own and adjacent files
+    private static final long[][] PASSED_MASKS = new long[2][BOARD_SIZE];
+    // Indexed by [colour ordinal][square]: squares on adjacent files, level with or behind the pawn
+    private static final long[][] SUPPORT_MASKS = new long[2][BOARD_SIZE];
+
+    static
+    {
+        for (int file = 0; file < BOARD_WIDTH; file++)
+        {
+            FILE_MASKS[file] = BoardUtils.FILE_A << file;
+        }
+
+        for (int file = 0; file < BOARD_WIDTH; file++)
+        {
+            if (file > 0) ADJACENT_FILE_MASKS[file] |= FILE_MASKS[file - 1];
+            if (file < BOARD_WIDTH - 1) ADJACENT_FILE_MASKS[file] |= FILE_MASKS[file + 1];
+        }
+
+        for (int square = 0; square < BOARD_SIZE; square++)
+        {
+            int file = BoardUtils.getFile(square);
+            int rank = BoardUtils.getRank(square);
+            long span = FILE_MASKS[file] | ADJACENT_FILE_MASKS[file];
+
+            for (int otherRank = 0; otherRank < BOARD_WIDTH; otherRank++)
+            {
+                long rankMask = 0xFFL << (otherRank * BOARD_WIDTH);
+
+                if (otherRank > rank) PASSED_MASKS[Piece.Colour.WHITE.ordinal()][square] |= span & rankMask;
+                if (otherRank < rank) PASSED_MASKS[Piece.Colour.BLACK.ordinal()][square] |= span & rankMask;
+
+                if (otherRank <= rank) SUPPORT_MASKS[Piece.Colour.WHITE.ordinal()][square] |= ADJACENT_FILE_MASKS[file] & rankMask;
+                if (otherRank >= rank) SUPPORT_MASKS[Piece.Colour.BLACK.ordinal()][square] |= ADJACENT_FILE_MASKS[file] & rankMask;
+            }
+        }
+    }
+
+    private final long whitePawns;
+    private final long blackPawns;
+    private final double score;
+
+    private PawnStructure(long whitePawns, long blackPawns, double score)
+    {
+        this.whitePawns = whitePawns;
+        this.blackPawns = blackPawns;
+        this.score = score;
+    }
+
+    /**
+     * Evaluates the structure formed by the given pawns.
+     */
+    public static PawnStructure analyse(long whitePawns, long blackPawns)
+    {
+        double score = sideScore(whitePawns, blackPawns, Piece.Colour.WHITE)
+                - sideScore(blackPawns, whitePawns, Piece.Colour.BLACK);
+
+        return new PawnStructure(whitePawns, blackPawns, score);
+    }
+
+    private static double sideScore(long ownPawns, long enemyPawns, Piece.Colour colour)
+    {
+        double score = 0;
+        long enemyAttacks = BoardUtils.pawnAttacks(enemyPawns, opponent(colour));
+        int forward = (colour == Piece.Colour.WHITE) ? BOARD_WIDTH : -BOARD_WIDTH;
+
+        for (int file = 0; file < BOARD_WIDTH; file++)
+        {
+            int pawnsOnFile = Long.bitCount(ownPawns & FILE_MASKS[file]);
+            if (pawnsOnFile > 1) score -= DOUBLED_PENALTY * (pawnsOnFile - 1);
+        }
+
+        for (long pawns = ownPawns; pawns != 0; pawns &= pawns - 1)
+        {
+            int square = Long.numberOfTrailingZeros(pawns);
+            int file = BoardUtils.getFile(square);
+
+            if ((enemyPawns & PASSED_MASKS[colour.ordinal()][square]) == 0)
+            {
+                int rank = BoardUtils.getRank(square);
+                score += PASSED_BONUS[(colour == Piece.Colour.WHITE) ? rank : BOARD_WIDTH - 1 - rank];
+            }
+
+            if ((ownPawns & ADJACENT_FILE_MASKS[file]) == 0)
+            {
+                score -= ISOLATED_PENALTY;
+            }
+            else if ((ownPawns & SUPPORT_MASKS[colour.ordinal()][square]) == 0
+                    && (enemyAttacks & (1L << (square + forward))) != 0)
+            {
+                // No neighbour can come up to support it, and it cannot advance safely
+                score -= BACKWARD_PENALTY;
+            }
+        }
+
+        return score;
+    }
+
+    /**
+     * Scores the pawns sheltering a king: own pawns on the king's file and the files beside it, one and two
+     * ranks in front of it.
+     * @return The shield bonus for that colour, in pawns (not signed by colour).
+     */
+    public double kingShield(Piece.Colour colour, int kingSquare)
+    {
+        if (kingSquare < 0) return 0;
+
+        long ownPawns = (colour == Piece.Colour.WHITE) ? whitePawns : blackPawns;
+        int file = BoardUtils.getFile(kingSquare);
+        long files = FILE_MASKS[file] | ADJACENT_FILE_MASKS[file];
+
+        int rank = BoardUtils.getRank(kingSquare);
+        int step = (colour == Piece.Colour.WHITE) ? 1 : -1;
+
+        return SHIELD_NEAR_BONUS * Long.bitCount(ownPawns & files & rankMask(rank + step))
+                + SHIELD_FAR_BONUS * Long.bitCount(ownPawns & files & rankMask(rank + 2 * step));
+    }
+
+    private static long rankMask(int rank)
+    {
+        return (rank < 0 || rank >= BOARD_WIDTH) ? 0L : 0xFFL << (rank * BOARD_WIDTH);
+    }
+
+    private static Piece.Colour opponent(Piece.Colour colour)
+    {
+        return (colour == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
+    }
+
+    public long getPawns(Piece.Colour colour) { return (colour == Piece.Colour.WHITE) ? whitePawns : blackPawns; }
+
+    public long getPawnAttacks(Piece.Colour colour) { return BoardUtils.pawnAttacks(getPawns(colour), colour); }
+
+    /**
+     * The structure score in pawns, from White's point of view.
+     */
+    public double getScore() { return score; }
+}
@@ -0,0 +1,28 @@
+package project.chess.mcts;
+
+/**
+ * The game-theoretic value of a search node, once it is known for certain.
+ * Like the win statistics, it is seen from the perspective of the player who made the move into the node.
+ */
+
+public enum ProvenResult
+{
+    UNKNOWN,
+    WIN,
+    LOSS,
+    DRAW;
+
+    /**
+     * The simulation result for the player to move at a node with this proven value (see MonteCarloTreeSearch.simulate).
+     */
+    public double resultForPlayerToMove()
+    {
+        return switch (this)
+        {
+            case WIN -> 0;
+            case LOSS -> 1;
+            case DRAW -> 0.5;
+            case UNKNOWN -> throw new IllegalStateException("Node is not proven");
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package project.chess.mcts;
+
+import java.util.Comparator;
+
+/**
+ * How {@link MonteCarloTreeSearch#getTopMoves} orders root moves. With either criterion, proven wins rank
+ * above every other move and proven losses below.
+ */
+
+public enum RankingCriterion
+{
+    /**
+     * Most visited first, the usual choice for the move to play; ties are broken by win rate.
+     */
+    VISITS(Comparator.comparingInt(MoveStatistics::getVisits)
+            .thenComparingDouble(RankingCriterion::winRateValue)),
+
+    /**
+     * Highest win rate first (proven draws count as 0.5); ties are broken by visits.
+     */
+    WIN_RATE(Comparator.comparingDouble(RankingCriterion::winRateValue)
+            .thenComparingInt(MoveStatistics::getVisits));
+
+    private final Comparator<MoveStatistics> comparator;
+
+    RankingCriterion(Comparator<MoveStatistics> statisticsComparator)
+    {
+        this.comparator = Comparator.comparingInt(RankingCriterion::provenRank).thenComparing(statisticsComparator);
+    }
+
+    /**
+     * Orders moves so that greater is better.
+     */
+    public Comparator<MoveStatistics> comparator() { return comparator; }
+
+    private static int provenRank(MoveStatistics statistics)
+    {
+        return switch (statistics.getProvenResult())
+        {
+            case WIN -> 1;
+            case LOSS -> -1;
+            default -> 0;
+        };
+    }
+
+    private static double winRateValue(MoveStatistics statistics)
+    {
+        return (statistics.getProvenResult() == ProvenResult.DRAW) ? 0.5 : statistics.getWinRate();
+    }
+}
@@ -0,0 +1,195 @@
+package project.chess.mcts;
+
+import project.chess.model.Chessboard;
+import project.chess.model.ChessboardPool;
+import project.chess.model.Move;
+import project.chess.model.PieceType;
+import project.chess.piece.Piece;
+
+import java.util.Random;
+
+/**
+ * Cheap move selection for rollouts.
+ * Each pseudolegal move is scored from features that can be read straight off the current board:
+ * the material it wins (captures ordered by MVV-LVA), promotions and direct checks. A softmax over
+ * those scores picks a move, and only the chosen move is tested for legality, so no resulting
+ * boards are built or evaluated for the moves that are not played.
+ */
+
+public class RolloutPolicy
+{
+    // Feature weights, in pawns
+    private static final double CHECK_BONUS = 0.5;
+    private static final double ATTACKER_PENALTY = 0.1;    // Prefers cheaper attackers for the same victim
+
+    private final double temperature;
+
+    public RolloutPolicy(double temperature)
+    {
+        this.temperature = temperature;
+    }
+
+    /**
+     * Scores a pseudolegal move by its incremental material gain and whether it checks the enemy king.
+     */
+    public static double scoreMove(Chessboard board, int move)
+    {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        Piece mover = board.getPiece(from);
+        Piece victim = board.getPiece(to);
+
+        double score = 0;
+
+        if (victim != null)
+        {
+            // MVV-LVA: the victim's value dominates, the attacker only breaks ties
+            score += HeuristicEvaluator.getPieceValue(victim.getType()) - ATTACKER_PENALTY * mover.getType().ordinal();
+        }
+        else if (mover.getType() == PieceType.PAWN && to == board.getEnPassantTarget())
+        {
+            score += HeuristicEvaluator.PAWN_VALUE;
+        }
+
+        Piece movedPiece = mover;
+        PieceType promotion = Move.getPromotion(move);
+        if (promotion != null)
+        {
+            score += HeuristicEvaluator.getPieceValue(promotion) - HeuristicEvaluator.PAWN_VALUE;
+            movedPiece = promotion.create(mover.getColour());
+        }
+
+        if (givesDirectCheck(board, movedPiece, to)) score += CHECK_BONUS;
+
+        return score;
+    }
+
+    /**
+     * Turns the move scores into a probability distribution by the same softmax the rollouts sample from.
+     * Used as move priors for PUCT selection.
+     * @param moves The legal moves of the position, as {@link Move} codes.
+     * @return One probability per move, in the same order.
+     */
+    public float[] computePriors(Chessboard board, int[] moves)
+    {
+        double[] scores = new double[moves.length];
+        double maxScore = Double.NEGATIVE_INFINITY;
+
+        for (int i = 0; i < moves.length; i++)
+        {
+            scores[i] = scoreMove(board, moves[i]);
+            maxScore = Math.max(maxScore, scores[i]);
+        }
+
+        double sum = 0;
+        for (int i = 0; i < scores.length; i++)
+        {
+            scores[i] = Math.exp((scores[i] - maxScore) / temperature);
+            sum += scores[i];
+        }
+
+        float[] priors = new float[moves.length];
+        for (int i = 0; i < priors.length; i++) priors[i] = (float) (scores[i] / sum);
+
+        return priors;
+    }
+
+    /**
+     * Picks a legal move for the colour by softmax over {@link #scoreMove} and plays it on a copy of the board.
+     * @return The board after the chosen move, or null if the colour has no legal moves.
+     */
+    public Chessboard playMove(Chessboard board, Piece.Colour colour, Random random)
+    {
+        return playMove(board, colour, random, null);
+    }
+
+    /**
+     * Like {@link #playMove(Chessboard, Piece.Colour, Random)}, but the candidate boards come from a pool.
+     * Boards of illegal candidates go straight back to it, and the returned board must be released by the caller.
+     * Pooled boards leave out the board's accumulator, see {@link ChessboardPool#acquireCopyWithoutAccumulator}.
+     * @param pool The pool to take boards from, or null to allocate them.
+     */
+    public Chessboard playMove(Chessboard board, Piece.Colour colour, Random random, ChessboardPool pool)
+    {
+        int[] moves = board.generateAllPseudolegalMoves(colour);
+        double[] weights = new double[moves.length];
+
+        double maxScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < moves.length; i++)
+        {
+            weights[i] = scoreMove(board, moves[i]);
+            maxScore = Math.max(maxScore, weights[i]);
+        }
+
+        // Subtracting the maximum keeps the exponentials in range; a weight of exactly 0 marks a removed move
+        double sumWeights = 0;
+        for (int i = 0; i < weights.length; i++)
+        {
+            weights[i] = Math.max(Math.exp((weights[i] - maxScore) / temperature), Double.MIN_VALUE);
+            sumWeights += weights[i];
+        }
+
+        // Sample until a legal move comes up, removing illegal ones from the wheel
+        for (int remaining = moves.length; remaining > 0; remaining--)
+        {
+            int index = sample(weights, sumWeights, random);
+
+            Chessboard next;
+            if (pool == null)
+            {
+                next = board.copyWithMove(moves[index]);
+            }
+            else
+            {
+                // Most candidates are only tested for check, so rollouts leave the accumulator out; an evaluator
+                // that needs one builds it for the final position
+                next = pool.acquireCopyWithoutAccumulator(board);
+                next.makeMove(moves[index]);
+            }
+
+            if (!next.isInCheck(colour)) return next;
+            if (pool != null) pool.release(next);
+
+            sumWeights -= weights[index];
+            weights[index] = 0;
+        }
+
+        return null;
+    }
+
+    /**
+     * Roulette-wheel selection over the non-zero weights.
+     */
+    private static int sample(double[] weights, double sumWeights, Random random)
+    {
+        double r = random.nextDouble() * sumWeights;
+        double cumulative = 0;
+        int lastCandidate = -1;
+
+        for (int i = 0; i < weights.length; i++)
+        {
+            if (weights[i] == 0) continue;
+
+            cumulative += weights[i];
+            lastCandidate = i;
+            if (r < cumulative) return i;
+        }
+
+        // Rounding can leave r just above the final cumulative weight
+        return lastCandidate;
+    }
+
+    /**
+     * Checks whether the piece would attack the enemy king from its target square.
+     * Discovered checks are not detected, which is acceptable for a rollout prior.
+     */
+    private static boolean givesDirectCheck(Chessboard board, Piece piece, int to)
+    {
+        if (piece.getType() == PieceType.KING) return false;
+
+        Piece.Colour opponent = (piece.getColour() == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
+        int kingPos = board.getKingPosition(opponent);
+
+        return kingPos >= 0 && piece.generateMoves(to, board).contains(kingPos);
+    }
+}
@@ -0,0 +1,32 @@
+package project.chess.mcts;
+
+/**
+ * Plain loop version of the network arithmetic, used when the Vector API is unavailable.
+ */
+
+public class ScalarNetworkKernels implements INetworkKernels
+{
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset)
+    {
+        for (int i = 0; i < accumulator.length; i++) accumulator[i] += weights[offset + i];
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset)
+    {
+        for (int i = 0; i < accumulator.length; i++) accumulator[i] -= weights[offset + i];
+    }
+
+    @Override
+    public int clampedDot(short[] values, short[] weights, int offset, int clamp)
+    {
+        int sum = 0;
+        for (int i = 0; i < values.length; i++)
+        {
+            int value = Math.max(0, Math.min(values[i], clamp));
+            sum += value * weights[offset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,60 @@
+package project.chess.mcts;
+
+/**
+ * Limits for a single {@link MonteCarloTreeSearch#search} call.
+ * Any combination of limits can be set; the search stops as soon as the first one is reached.
+ * Instances are immutable, so the {@code with...} methods return a new copy.
+ */
+
+public class SearchLimits
+{
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final long maxSimulations;
+    private final long maxTimeMillis;
+    private final long maxNodes;
+
+    public SearchLimits(long maxSimulations, long maxTimeMillis, long maxNodes)
+    {
+        if (maxSimulations <= 0 || maxTimeMillis <= 0 || maxNodes <= 0)
+        {
+            throw new IllegalArgumentException("Search limits must be positive");
+        }
+
+        this.maxSimulations = maxSimulations;
+        this.maxTimeMillis = maxTimeMillis;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * No limits: the search only stops when cancelled, interrupted or the result is decided.
+     */
+    public static SearchLimits unlimited() { return new SearchLimits(UNLIMITED, UNLIMITED, UNLIMITED); }
+
+    public static SearchLimits simulations(long simulations) { return unlimited().withSimulations(simulations); }
+
+    public static SearchLimits time(long millis) { return unlimited().withTime(millis); }
+
+    public static SearchLimits nodes(long nodes) { return unlimited().withNodes(nodes); }
+
+    public SearchLimits withSimulations(long simulations) { return new SearchLimits(simulations, maxTimeMillis, maxNodes); }
+
+    public SearchLimits withTime(long millis) { return new SearchLimits(maxSimulations, millis, maxNodes); }
+
+    public SearchLimits withNodes(long nodes) { return new SearchLimits(maxSimulations, maxTimeMillis, nodes); }
+
+    public long getMaxSimulations() { return maxSimulations; }
+
+    public long getMaxTimeMillis() { return maxTimeMillis; }
+
+    /**
+     * The maximum number of new tree nodes the search may create.
+     */
+    public long getMaxNodes() { return maxNodes; }
+
+    public boolean hasSimulationLimit() { return maxSimulations != UNLIMITED; }
+
+    public boolean hasTimeLimit() { return maxTimeMillis != UNLIMITED; }
+
+    public boolean hasNodeLimit() { return maxNodes != UNLIMITED; }
+}
@@ -0,0 +1,27 @@
+package project.chess.mcts;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The handle of a search started with {@link MonteCarloTreeSearch#searchAsync}.
+ * Besides the final move, it holds the best move of this particular search while it is still running.
+ */
+
+public class SearchTask extends FutureTask<String>
+{
+    private volatile String bestMoveSoFar = null;
+
+    SearchTask(Callable<String> search)
+    {
+        super(search);
+    }
+
+    /**
+     * Returns the best root move this search has found so far, or null before its first simulation.
+     * Safe to call from any thread, also after the search was cancelled.
+     */
+    public String getBestMoveSoFar() { return bestMoveSoFar; }
+
+    void setBestMoveSoFar(String move) { bestMoveSoFar = move; }
+}
@@ -0,0 +1,28 @@
+package project.chess.mcts;
+
+/**
+ * How the tree policy chooses which child to descend into.
+ */
+
+public enum SelectionPolicy
+{
+    /**
+     * UCB1: every move is tried once (in random order) before any is revisited.
+     */
+    UCT(Math.sqrt(2)),
+
+    /**
+     * Predictor + UCB, as in AlphaZero: exploration is weighted by each move's prior, so likely moves such as
+     * captures and checks are visited first and unlikely ones may never be expanded.
+     */
+    PUCT(1.5);
+
+    private final double defaultExploration;
+
+    SelectionPolicy(double defaultExploration)
+    {
+        this.defaultExploration = defaultExploration;
+    }
+
+    public double getDefaultExploration() { return defaultExploration; }
+}
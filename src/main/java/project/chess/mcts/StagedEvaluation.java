@@ -0,0 +1,24 @@
+package project.chess.mcts;
+
+/**
+ * A score together with the evaluation stage that produced it.
+ */
+
+public class StagedEvaluation
+{
+    private final double score;
+    private final EvaluationStage stage;
+
+    public StagedEvaluation(double score, EvaluationStage stage)
+    {
+        this.score = score;
+        this.stage = stage;
+    }
+
+    public double getScore() { return score; }
+
+    public EvaluationStage getStage() { return stage; }
+
+    @Override
+    public String toString() { return score + " (" + stage + ")"; }
+}
@@ -0,0 +1,101 @@
+package project.chess.mcts;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Maps position hashes to the {@link NodeStatistics} shared by every tree node that reaches that position.
+ * This turns the search tree into a DAG as far as statistics are concerned: the tree structure (and so the
+ * path used for backpropagation) is unchanged, but transposed nodes read and update the same counters.
+ *
+ * @details
+ * - The table has a fixed number of slots and collisions simply overwrite the slot (always-replace), so its
+ *   memory use never grows with the search.
+ * - Nodes keep a reference to their statistics, so an overwritten entry only means that nodes created later
+ *   no longer share them; nothing already in the tree loses its counters.
+ * - The entries describe one search tree, see {@link MonteCarloTreeSearch} for when the table is cleared.
+ */
+
+public class TranspositionTable
+{
+    public static final int DEFAULT_SIZE = 1 << 18;
+
+    private final Entry[] entries;
+    private final int indexMask;
+    private int size = 0;
+
+    public TranspositionTable() { this(DEFAULT_SIZE); }
+
+    /**
+     * @param size The number of entries, rounded up to a power of two.
+     */
+    public TranspositionTable(int size)
+    {
+        if (size <= 0) throw new IllegalArgumentException("Table size must be positive");
+
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) capacity <<= 1;
+
+        entries = new Entry[capacity];
+        indexMask = capacity - 1;
+    }
+
+    /**
+     * Returns the statistics for a position, creating empty ones the first time it is seen
+     * (or the first time since its slot was taken over by another position).
+     */
+    public NodeStatistics getOrCreate(long positionHash)
+    {
+        int index = indexOf(positionHash);
+        Entry entry = entries[index];
+        if (entry != null && entry.positionHash == positionHash) return entry.statistics;
+
+        if (entry == null) size++;
+        entries[index] = new Entry(positionHash, new NodeStatistics());
+        return entries[index].statistics;
+    }
+
+    public boolean contains(long positionHash)
+    {
+        Entry entry = entries[indexOf(positionHash)];
+        return entry != null && entry.positionHash == positionHash;
+    }
+
+    /**
+     * The number of occupied slots.
+     */
+    public int size() { return size; }
+
+    public int capacity() { return entries.length; }
+
+    /**
+     * Drops every position not in the given set, e.g. after the tree nodes reaching them have been pruned.
+     */
+    public void retainAll(Set<Long> positionHashes)
+    {
+        for (int i = 0; i < entries.length; i++)
+        {
+            if (entries[i] != null && !positionHashes.contains(entries[i].positionHash))
+            {
+                entries[i] = null;
+                size--;
+            }
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(entries, null);
+        size = 0;
+    }
+
+    /**
+     * Fibonacci hashing: the high bits of the product are well mixed even for keys differing in low bits only.
+     */
+    private int indexOf(long positionHash)
+    {
+        return (int) ((positionHash * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+    }
+
+    private record Entry(long positionHash, NodeStatistics statistics) {}
+}
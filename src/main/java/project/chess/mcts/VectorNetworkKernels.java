@@ -0,0 +1,76 @@
+package project.chess.mcts;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Network arithmetic using the (incubating) Vector API, so each step works on as many 16-bit lanes as the
+ * CPU's registers hold. Lanes left over at the end of an array are handled by a scalar loop.
+ * Only load this class through {@link NetworkEvaluator#defaultKernels()}, which checks the module is present.
+ */
+
+public class VectorNetworkKernels implements INetworkKernels
+{
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+    // The dot product widens shorts to ints, so it works on half as many lanes at a time
+    private static final VectorSpecies<Short> DOT_SPECIES = ShortVector.SPECIES_128;
+    private static final VectorSpecies<Integer> SUM_SPECIES = IntVector.SPECIES_256;
+
+    @Override
+    public void add(short[] accumulator, short[] weights, int offset)
+    {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(accumulator.length); i < bound; i += SPECIES.length())
+        {
+            ShortVector.fromArray(SPECIES, accumulator, i)
+                    .add(ShortVector.fromArray(SPECIES, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) accumulator[i] += weights[offset + i];
+    }
+
+    @Override
+    public void subtract(short[] accumulator, short[] weights, int offset)
+    {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(accumulator.length); i < bound; i += SPECIES.length())
+        {
+            ShortVector.fromArray(SPECIES, accumulator, i)
+                    .sub(ShortVector.fromArray(SPECIES, weights, offset + i))
+                    .intoArray(accumulator, i);
+        }
+        for (; i < accumulator.length; i++) accumulator[i] -= weights[offset + i];
+    }
+
+    @Override
+    public int clampedDot(short[] values, short[] weights, int offset, int clamp)
+    {
+        ShortVector zero = ShortVector.zero(DOT_SPECIES);
+        ShortVector max = ShortVector.broadcast(DOT_SPECIES, (short) clamp);
+        IntVector sums = IntVector.zero(SUM_SPECIES);
+
+        int i = 0;
+        for (int bound = DOT_SPECIES.loopBound(values.length); i < bound; i += DOT_SPECIES.length())
+        {
+            ShortVector clamped = ShortVector.fromArray(DOT_SPECIES, values, i).max(zero).min(max);
+            ShortVector weight = ShortVector.fromArray(DOT_SPECIES, weights, offset + i);
+
+            // Each product fits in 16 bits (clamp * |weight| <= 255 * 127), but their sum does not
+            IntVector products = (IntVector) clamped.mul(weight).convertShape(VectorOperators.S2I, SUM_SPECIES, 0);
+            sums = sums.add(products);
+        }
+
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++)
+        {
+            int value = Math.max(0, Math.min(values[i], clamp));
+            sum += value * weights[offset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public boolean isVectorized() { return true; }
+}
@@ -1,5 +1,7 @@
 package project.chess.model;
 
+import project.chess.piece.Piece;
+
 import static project.chess.model.Chessboard.BOARD_WIDTH;
 
 /**
@@ -9,6 +11,10 @@ import static project.chess.model.Chessboard.BOARD_WIDTH;
 
 public class BoardUtils
 {
+    // Bitmasks (bit i for square i) of the a- and h-files
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << (BOARD_WIDTH - 1);
+
     /**
      * Returns the file (column), from 0-7, given a square index from 0-63.
      */
@@ -62,4 +68,14 @@ public class BoardUtils
         char rankChar = (char) ('1' + getRank(position));
         return "" + fileChar + rankChar;
     }
+
+    /**
+     * Returns the squares attacked by a set of pawns of one colour, all given as bitmasks.
+     * Pawns on the a-file cannot capture towards the h-file and vice versa, so those are masked off before shifting.
+     */
+    public static long pawnAttacks(long pawns, Piece.Colour colour)
+    {
+        if (colour == Piece.Colour.WHITE) return ((pawns & ~FILE_A) << 7) | ((pawns & ~FILE_H) << 9);
+        else return ((pawns & ~FILE_H) >>> 7) | ((pawns & ~FILE_A) >>> 9);
+    }
 }
@@ -12,13 +12,22 @@ import java.util.*;
 /**
  * Represents a chess board with pieces and game state.
  * Handles move generation, validation, and edge-case rules (castling, en passant, promotion).
- * Uses {@link IHashTable} to store piece positions efficiently.
+ * Uses {@link IntObjectHashTable} to store piece positions efficiently.
  */
 
 public class Chessboard implements Iterable<Piece>
 {
     public static final int BOARD_WIDTH = 8;
     public static final int BOARD_SIZE = 64;
+    // Sizes the piece table so that a full set of pieces never makes it grow
+    private static final int MAX_PIECES = 32;
+
+    private static final PieceType[] PROMOTION_TYPES = {
+            PieceType.QUEEN,
+            PieceType.ROOK,
+            PieceType.BISHOP,
+            PieceType.KNIGHT
+    };
 
     // King position cache
     private int whiteKingPosition = -1;
@@ -29,13 +38,33 @@ public class Chessboard implements Iterable<Piece>
     @Getter
     private int enPassantTarget = -1;
 
-    private IHashTable<Integer, Piece> boardMap;
+    // Zobrist hash of the piece placement only, updated incrementally by setPiece()
+    private long pieceHash = 0L;
+
+    // Pawn placement as bitmasks (bit i for square i) and its own Zobrist hash, also updated by setPiece()
+    private long whitePawns = 0L;
+    private long blackPawns = 0L;
+    private long pawnHash = 0L;
+
+    // Material plus piece-square values (White minus Black, in centipawns) and game phase,
+    // updated incrementally by setPiece(), see PieceSquareTables
+    private int midgameScore = 0;
+    private int endgameScore = 0;
+    private int phase = 0;
+
+    // Optional, e.g. the first layer of a network evaluator; kept up to date by setPiece()
+    private IFeatureAccumulator accumulator = null;
+
+    private IntObjectHashTable<Piece> boardMap;
+
+    // The pool this board is currently checked out of, or null; see ChessboardPool
+    ChessboardPool owner = null;
 
     public EnumSet<CastlingRight> castlingRights;
 
     public Chessboard()
     {
-        boardMap = new HashTable<>();
+        boardMap = new IntObjectHashTable<>(MAX_PIECES);
         castlingRights = EnumSet.allOf(CastlingRight.class);
     }
 
@@ -45,50 +74,88 @@ public class Chessboard implements Iterable<Piece>
       */
     public Chessboard(Chessboard other)
     {
-        this.boardMap = new HashTable<>();
+        this.boardMap = new IntObjectHashTable<>(MAX_PIECES);
+        this.castlingRights = EnumSet.noneOf(CastlingRight.class);
+
+        copyFrom(other);
+    }
+
+    /**
+     * Overwrites this board with a copy of another, reusing this board's piece table and castling set.
+     * Lets {@link ChessboardPool} recycle boards instead of allocating a new one for every copy.
+     * @return This board.
+     */
+    public Chessboard copyFrom(Chessboard other) { return copyFrom(other, true); }
+
+    /**
+     * Like {@link #copyFrom(Chessboard)}, but can leave out the other board's accumulator. Boards that are only
+     * used to test for check then skip the accumulator update on every piece they set.
+     * @param withAccumulator Whether the copy carries (a copy of) the other board's accumulator.
+     * @return This board.
+     */
+    public Chessboard copyFrom(Chessboard other, boolean withAccumulator)
+    {
+        boardMap.clear();
 
         for (int position = 0; position < BOARD_SIZE; position++)
         {
             Piece piece = other.getPiece(position);
             if (piece != null)
             {
-                this.boardMap.add(position, PieceFactory.copy(piece));
+                this.boardMap.put(position, PieceFactory.copy(piece));
             }
         }
 
         this.whiteKingPosition = other.whiteKingPosition;
         this.blackKingPosition = other.blackKingPosition;
+        this.pieceHash = other.pieceHash;
+        this.whitePawns = other.whitePawns;
+        this.blackPawns = other.blackPawns;
+        this.pawnHash = other.pawnHash;
+        this.midgameScore = other.midgameScore;
+        this.endgameScore = other.endgameScore;
+        this.phase = other.phase;
+
+        // A recycled board usually already holds an accumulator for the same network, so its arrays are reused
+        if (other.accumulator == null || !withAccumulator) this.accumulator = null;
+        else if (this.accumulator == null || !this.accumulator.copyFrom(other.accumulator)) this.accumulator = other.accumulator.copy();
 
         this.enPassantTarget = other.enPassantTarget;
-        this.castlingRights = EnumSet.copyOf(other.castlingRights);
+        this.castlingRights.clear();
+        this.castlingRights.addAll(other.castlingRights);
 
         recalculateKingPositions();
+        return this;
     }
 
     public Piece getPiece(int position)
     {
-        if (boardMap.contains(position))
-        {
-            return boardMap.item(position);
-        }
-        return null;
+        return boardMap.get(position);
     }
 
     public void setPiece(int position, Piece piece)
     {
         Piece oldPiece = getPiece(position);
 
+        if (oldPiece != null)
+        {
+            pieceHash ^= Zobrist.pieceKey(oldPiece, position);
+            updateScores(oldPiece, position, -1);
+            if (oldPiece.getType() == PieceType.PAWN) togglePawn(oldPiece, position);
+            if (accumulator != null) accumulator.removePiece(oldPiece, position);
+        }
+
         if (piece == null)
         {
-            boardMap.delete(position);
+            boardMap.remove(position);
         }
         else
         {
-            if (oldPiece != null)
-            {
-                boardMap.delete(position);
-            }
-            boardMap.add(position, piece);
+            boardMap.put(position, piece);
+            pieceHash ^= Zobrist.pieceKey(piece, position);
+            updateScores(piece, position, 1);
+            if (piece.getType() == PieceType.PAWN) togglePawn(piece, position);
+            if (accumulator != null) accumulator.addPiece(piece, position);
 
             // Update King position cache
             if (piece.getType() == PieceType.KING)
@@ -99,11 +166,164 @@ public class Chessboard implements Iterable<Piece>
         }
     }
 
+    /**
+     * Attaches an accumulator, filling it from the current position. From then on it follows every piece set on
+     * this board and on copies made from it.
+     * @param accumulator The accumulator, or null to detach the current one.
+     */
+    public void attachAccumulator(IFeatureAccumulator accumulator)
+    {
+        this.accumulator = accumulator;
+        if (accumulator != null) fillAccumulator(accumulator);
+    }
+
+    /**
+     * Fills an accumulator from the current position without attaching it, so later moves do not update it.
+     */
+    public void fillAccumulator(IFeatureAccumulator accumulator)
+    {
+        accumulator.reset();
+        for (int position = 0; position < BOARD_SIZE; position++)
+        {
+            Piece piece = getPiece(position);
+            if (piece != null) accumulator.addPiece(piece, position);
+        }
+    }
+
+    public IFeatureAccumulator getAccumulator() { return accumulator; }
+
+    private void togglePawn(Piece pawn, int position)
+    {
+        if (pawn.getColour() == Piece.Colour.WHITE) whitePawns ^= 1L << position;
+        else blackPawns ^= 1L << position;
+
+        pawnHash ^= Zobrist.pieceKey(pawn, position);
+    }
+
+    /**
+     * Returns the squares holding the colour's pawns, as a bitmask with bit {@code i} set for square {@code i}.
+     */
+    public long getPawns(Piece.Colour colour) { return (colour == Piece.Colour.WHITE) ? whitePawns : blackPawns; }
+
+    /**
+     * Returns the Zobrist hash of the pawn placement alone, for caching pawn structure evaluation.
+     */
+    public long getPawnHash() { return pawnHash; }
+
+    /**
+     * The number of pieces on the board, of both colours.
+     */
+    public int getPieceCount() { return boardMap.length(); }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) a piece's contribution to the incremental evaluation terms.
+     */
+    private void updateScores(Piece piece, int position, int sign)
+    {
+        PieceType type = piece.getType();
+        int perspective = (piece.getColour() == Piece.Colour.WHITE) ? sign : -sign;
+
+        midgameScore += perspective * PieceSquareTables.midgameValue(type, piece.getColour(), position);
+        endgameScore += perspective * PieceSquareTables.endgameValue(type, piece.getColour(), position);
+        phase += sign * PieceSquareTables.phaseWeight(type);
+    }
+
+    /**
+     * Returns the material and piece-square score of the board, tapered between middlegame and endgame
+     * by the pieces left. In centipawns, from White's point of view. O(1), since the terms are kept up to
+     * date as pieces move.
+     */
+    public int getMaterialScore()
+    {
+        return PieceSquareTables.taper(midgameScore, endgameScore, phase);
+    }
+
+    public int getMidgameScore() { return midgameScore; }
+
+    public int getEndgameScore() { return endgameScore; }
+
+    public int getPhase() { return phase; }
+
+    /**
+     * Returns the squares attacked by the colour's pawns, as a bitmask with bit {@code i} set for square {@code i}.
+     */
+    public long getPawnAttacks(Piece.Colour colour)
+    {
+        return BoardUtils.pawnAttacks(getPawns(colour), colour);
+    }
+
     public boolean isOccupied(int position)
     {
         return boardMap.contains(position);
     }
 
+    /**
+     * Returns the Zobrist hash of the board: piece placement, castling rights and en passant file.
+     * The side to move is not part of the board, see {@link Game#getPositionHash()}.
+     */
+    public long getZobristHash()
+    {
+        long hash = pieceHash ^ Zobrist.castlingKey(getCastlingMask());
+
+        // Only hash the en passant file when a capture is actually possible, so that transposed
+        // positions after a harmless double pawn push still hash the same
+        if (isEnPassantCapturable())
+        {
+            hash ^= Zobrist.enPassantKey(BoardUtils.getFile(enPassantTarget));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns the castling rights as a bitmask, with bit {@code i} set for {@code CastlingRight.values()[i]}.
+     */
+    public int getCastlingMask()
+    {
+        int mask = 0;
+        for (CastlingRight right : castlingRights)
+        {
+            mask |= 1 << right.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Sets the castling rights from a bitmask in the format of {@link #getCastlingMask()}.
+     */
+    public void setCastlingMask(int mask)
+    {
+        castlingRights.clear();
+        for (CastlingRight right : CastlingRight.values())
+        {
+            if ((mask & (1 << right.ordinal())) != 0) castlingRights.add(right);
+        }
+    }
+
+    /**
+     * Checks whether a pawn stands next to the pawn that just made a double step, ready to capture en passant.
+     */
+    private boolean isEnPassantCapturable()
+    {
+        if (enPassantTarget < 0) return false;
+
+        // A target on the 3rd rank was created by white, so black captures (and vice versa)
+        boolean whiteJustMoved = BoardUtils.getRank(enPassantTarget) == 2;
+        Piece.Colour capturer = whiteJustMoved ? Piece.Colour.BLACK : Piece.Colour.WHITE;
+        int pawnRank = whiteJustMoved ? 3 : 4;
+        int file = BoardUtils.getFile(enPassantTarget);
+
+        for (int adjacentFile = file - 1; adjacentFile <= file + 1; adjacentFile += 2)
+        {
+            if (adjacentFile < 0 || adjacentFile >= BOARD_WIDTH) continue;
+
+            Piece piece = getPiece(BoardUtils.toIndex(pawnRank, adjacentFile));
+            if (piece != null && piece.getType() == PieceType.PAWN && piece.getColour() == capturer) return true;
+        }
+
+        return false;
+    }
+
     /**
      * Executes a move on the board, including castling and en passant.
      */
@@ -269,7 +489,15 @@ public class Chessboard implements Iterable<Piece>
      */
     public void importBasicFEN(String fen)
     {
-        boardMap = new HashTable<>();
+        boardMap.clear();
+        pieceHash = 0L;
+        whitePawns = 0L;
+        blackPawns = 0L;
+        pawnHash = 0L;
+        if (accumulator != null) accumulator.reset();
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
 
         whiteKingPosition = -1;
         blackKingPosition = -1;
@@ -355,66 +583,16 @@ public class Chessboard implements Iterable<Piece>
 
                 if (isCapture && targetPiece.getType() == PieceType.KING) continue;
 
-                String sanMove;
-
-                // Castling detection
-                if (piece.getType() == PieceType.KING && Math.abs(targetPos - originPos) == 2)
+                // Promotions produce one board per promotion piece
+                if (piece.getType() == PieceType.PAWN && isPromotionSquare(targetPos, colour))
                 {
-                    sanMove = (targetPos > originPos) ? "O-O" : "O-O-O";
+                    if (targetPos == getEnPassantTarget() && !isOccupied(targetPos)) isCapture = true;
+                    legalMovesBoards.addAll(generatePromotionMoves(originPos, targetPos, piece, isCapture));
+                    continue;
                 }
-                else
-                {
-                    String toSquare = BoardUtils.toCoordinate(targetPos);
-                    String pieceSymbol = PieceFactory.toAlgebraicNotation(piece);
-                    String disambiguation = "";
 
-                    // Disambiguation for non-pawn pieces
-                    if (piece.getType() != PieceType.PAWN)
-                    {
-                        if (needsDisambiguation(originPos, targetPos, piece))
-                        {
-                            disambiguation = getDisambiguation(originPos, piece);
-                        }
-                    }
-
-                    // Pawn move handling (including en passant)
-                    if (piece.getType() == PieceType.PAWN)
-                    {
-                        boolean isEnPassant = false;
-
-                        // En passant
-                        if (targetPos == getEnPassantTarget() && !isOccupied(targetPos))
-                        {
-                            isEnPassant = true;
-                            isCapture = true;
-                        }
-
-
-                        if (isCapture)
-                        {
-                            char fromFileChar = (char) ('a' + (originPos % BOARD_WIDTH));
-                            sanMove = fromFileChar + "x" + toSquare;
-                        }
-                        else
-                        {
-                            sanMove = toSquare;
-                        }
-
-                        if ((BoardUtils.getRank(targetPos) == 0 && piece.getColour() == Piece.Colour.BLACK) ||
-                                (BoardUtils.getRank(targetPos) == 7 && piece.getColour() == Piece.Colour.WHITE))
-                        {
-                            legalMovesBoards.addAll(generatePromotionMoves(originPos, targetPos, piece, isCapture));
-                            continue;
-                        }
-
-                    }
-                    else
-                    {
-                        sanMove = pieceSymbol + disambiguation + (isCapture ? "x" : "") + toSquare;
-                    }
-
-                    // TODO add check or mate indicators
-                }
+                // TODO add check or mate indicators
+                String sanMove = toSAN(Move.encode(originPos, targetPos));
 
                 Chessboard newBoard = new Chessboard(this);
                 newBoard.move(originPos, targetPos);
@@ -474,6 +652,215 @@ public class Chessboard implements Iterable<Piece>
         return legalMovesSAN;
     }
 
+    /**
+     * Generates all pseudolegal moves (may leave king in check) as compact {@link Move} codes,
+     * without building the resulting boards.
+     */
+    public int[] generateAllPseudolegalMoves(Piece.Colour colour)
+    {
+        int[] moves = new int[64];
+        int count = 0;
+
+        for (int originPos = 0; originPos < BOARD_SIZE; originPos++)
+        {
+            Piece piece = getPiece(originPos);
+            if (piece == null || piece.getColour() != colour) continue;
+
+            for (int targetPos : piece.generateMoves(originPos, this))
+            {
+                Piece targetPiece = getPiece(targetPos);
+                if (targetPiece != null && targetPiece.getType() == PieceType.KING) continue;
+
+                // Make room for up to four promotion moves
+                if (count + 4 > moves.length) moves = Arrays.copyOf(moves, moves.length * 2);
+
+                if (piece.getType() == PieceType.PAWN && isPromotionSquare(targetPos, colour))
+                {
+                    for (PieceType promotionType : PROMOTION_TYPES)
+                    {
+                        moves[count++] = Move.encode(originPos, targetPos, promotionType);
+                    }
+                }
+                else
+                {
+                    moves[count++] = Move.encode(originPos, targetPos);
+                }
+            }
+        }
+
+        return Arrays.copyOf(moves, count);
+    }
+
+    /**
+     * Plays a move given as a {@link Move} code, including castling, en passant and promotion.
+     * The move is not checked for legality.
+     */
+    public void makeMove(int move)
+    {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        Piece movingPiece = getPiece(from);
+
+        move(from, to);
+
+        PieceType promotion = Move.getPromotion(move);
+        if (promotion != null)
+        {
+            setPiece(to, promotion.create(movingPiece.getColour()));
+        }
+    }
+
+    /**
+     * Returns the square of the piece a move would capture, which differs from the target square for en passant.
+     * @return The square, or -1 if the move is not a capture.
+     */
+    public int getCaptureSquare(int move)
+    {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        Piece movingPiece = getPiece(from);
+        Piece targetPiece = getPiece(to);
+
+        if (movingPiece == null) return -1;
+        if (targetPiece != null) return (targetPiece.getColour() != movingPiece.getColour()) ? to : -1;
+
+        if (movingPiece.getType() == PieceType.PAWN && to == enPassantTarget)
+        {
+            return to + ((movingPiece.getColour() == Piece.Colour.WHITE) ? -BOARD_WIDTH : BOARD_WIDTH);
+        }
+        return -1;
+    }
+
+    /**
+     * Takes back a move played with {@link #makeMove}, including castling, en passant and promotion.
+     * @param captured The piece the move captured, or null.
+     * @param capturedSquare Where the captured piece stood, see {@link #getCaptureSquare}.
+     * @param castlingMask The castling rights from before the move, see {@link #getCastlingMask()}.
+     * @param enPassantTarget The en passant target from before the move.
+     */
+    public void unmakeMove(int move, Piece captured, int capturedSquare, int castlingMask, int enPassantTarget)
+    {
+        int from = Move.getFrom(move);
+        int to = Move.getTo(move);
+        Piece movedPiece = getPiece(to);
+
+        if (Move.isPromotion(move)) movedPiece = PieceType.PAWN.create(movedPiece.getColour());
+
+        setPiece(to, null);
+        setPiece(from, movedPiece);
+        if (captured != null) setPiece(capturedSquare, captured);
+
+        // Castling also moved the rook to the square the king passed over
+        if (movedPiece.getType() == PieceType.KING && Math.abs(to - from) == 2)
+        {
+            int rank = BoardUtils.getRank(from);
+            int rookHome = BoardUtils.toIndex(rank, (to > from) ? 7 : 0);
+            int rookSquare = (from + to) / 2;
+
+            setPiece(rookHome, getPiece(rookSquare));
+            setPiece(rookSquare, null);
+        }
+
+        setCastlingMask(castlingMask);
+        this.enPassantTarget = enPassantTarget;
+    }
+
+    /**
+     * Returns a copy of this board with the move played, leaving this board unchanged.
+     */
+    public Chessboard copyWithMove(int move)
+    {
+        Chessboard newBoard = new Chessboard(this);
+        newBoard.makeMove(move);
+        return newBoard;
+    }
+
+    /**
+     * Checks whether a pseudolegal move leaves the mover's own king safe.
+     */
+    public boolean isLegalMove(int move)
+    {
+        Piece movingPiece = getPiece(Move.getFrom(move));
+        if (movingPiece == null) return false;
+
+        ChessboardPool pool = ChessboardPool.get();
+        Chessboard testBoard = pool.acquireCopyWithoutAccumulator(this);
+        testBoard.makeMove(move);
+
+        boolean legal = !testBoard.isInCheck(movingPiece.getColour());
+        pool.release(testBoard);
+        return legal;
+    }
+
+    /**
+     * Checks whether the colour has at least one legal move, stopping at the first one found.
+     */
+    public boolean hasLegalMove(Piece.Colour colour)
+    {
+        for (int move : generateAllPseudolegalMoves(colour))
+        {
+            if (isLegalMove(move)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Converts a pseudolegal move code to SAN notation for the current position.
+     * @throws IllegalArgumentException If there is no piece on the origin square.
+     */
+    public String toSAN(int move)
+    {
+        int originPos = Move.getFrom(move);
+        int targetPos = Move.getTo(move);
+
+        Piece piece = getPiece(originPos);
+        if (piece == null)
+        {
+            throw new IllegalArgumentException("No piece on " + BoardUtils.toCoordinate(originPos));
+        }
+
+        // Castling detection
+        if (piece.getType() == PieceType.KING && Math.abs(targetPos - originPos) == 2)
+        {
+            return (targetPos > originPos) ? "O-O" : "O-O-O";
+        }
+
+        Piece targetPiece = getPiece(targetPos);
+        boolean isCapture = targetPiece != null && targetPiece.getColour() != piece.getColour();
+        String toSquare = BoardUtils.toCoordinate(targetPos);
+
+        // Pawn move handling (including en passant and promotion)
+        if (piece.getType() == PieceType.PAWN)
+        {
+            if (targetPos == getEnPassantTarget() && !isOccupied(targetPos)) isCapture = true;
+
+            String san = toSquare;
+            if (isCapture)
+            {
+                char fromFileChar = (char) ('a' + (originPos % BOARD_WIDTH));
+                san = fromFileChar + "x" + toSquare;
+            }
+
+            PieceType promotion = Move.getPromotion(move);
+            return (promotion == null) ? san : san + "=" + promotion.getAlgebraic();
+        }
+
+        // Disambiguation for non-pawn pieces
+        String disambiguation = "";
+        if (needsDisambiguation(originPos, targetPos, piece))
+        {
+            disambiguation = getDisambiguation(originPos, piece);
+        }
+
+        return PieceFactory.toAlgebraicNotation(piece) + disambiguation + (isCapture ? "x" : "") + toSquare;
+    }
+
+    private boolean isPromotionSquare(int position, Piece.Colour colour)
+    {
+        int rank = BoardUtils.getRank(position);
+        return (rank == 0 && colour == Piece.Colour.BLACK) || (rank == 7 && colour == Piece.Colour.WHITE);
+    }
+
     /**
      * Generates all promotion move variations (Q, R, B, N) for a pawn reaching the back rank.
      */
@@ -483,14 +870,7 @@ public class Chessboard implements Iterable<Piece>
         char fromFileChar = (char) ('a' + (originPos % BOARD_WIDTH));
         String toSquare = BoardUtils.toCoordinate(targetPos);
 
-        PieceType[] promotionTypes = {
-                PieceType.QUEEN,
-                PieceType.ROOK,
-                PieceType.BISHOP,
-                PieceType.KNIGHT
-        };
-
-        for (PieceType promotionType : promotionTypes)
+        for (PieceType promotionType : PROMOTION_TYPES)
         {
             String san;
 
@@ -564,12 +944,12 @@ public class Chessboard implements Iterable<Piece>
 
     public boolean isCheckmate(Piece.Colour colour)
     {
-        return isInCheck(colour) && generateAllLegalMoveBoards(colour).isEmpty();
+        return isInCheck(colour) && !hasLegalMove(colour);
     }
 
     public boolean isStalemate(Piece.Colour colour)
     {
-        return !isInCheck(colour) && generateAllLegalMoveBoards(colour).isEmpty();
+        return !isInCheck(colour) && !hasLegalMove(colour);
     }
 
     /**
@@ -0,0 +1,119 @@
+package project.chess.model;
+
+import project.chess.datastructure.DynamicArray;
+
+/**
+ * A per-thread pool of {@link Chessboard} instances for short-lived copies, such as rollout positions and
+ * the scratch boards of legality checks.
+ *
+ * @details
+ * - {@link #acquire} hands out a recycled board (or a new one if the pool is empty); its contents are
+ *   whatever it last held, so it is normally filled with {@link Chessboard#copyFrom} or {@link #acquireCopy}.
+ * - {@link #release} returns the board for reuse. A board must be released exactly once, on the thread that
+ *   acquired it, and must not be used afterwards.
+ * - Every pool counts the boards it has handed out and not yet taken back, so tests can check for leaks
+ *   with {@link #assertNoLeaks}.
+ */
+
+public class ChessboardPool
+{
+    // Boards beyond this many are left to the garbage collector on release
+    private static final int MAX_POOLED = 256;
+
+    private static final ThreadLocal<ChessboardPool> POOLS = ThreadLocal.withInitial(ChessboardPool::new);
+
+    private final DynamicArray<Chessboard> free = new DynamicArray<>();
+
+    private int outstanding = 0;
+    private long allocations = 0;
+    private long reuses = 0;
+
+    private ChessboardPool() {}
+
+    /**
+     * Returns the pool of the current thread.
+     */
+    public static ChessboardPool get() { return POOLS.get(); }
+
+    public Chessboard acquire()
+    {
+        Chessboard board;
+
+        if (free.isEmpty())
+        {
+            board = new Chessboard();
+            allocations++;
+        }
+        else
+        {
+            board = free.removeLast();
+            reuses++;
+        }
+
+        board.owner = this;
+        outstanding++;
+        return board;
+    }
+
+    /**
+     * Acquires a board and overwrites it with a copy of the source.
+     */
+    public Chessboard acquireCopy(Chessboard source)
+    {
+        return acquire().copyFrom(source);
+    }
+
+    /**
+     * Acquires a copy of the source without its accumulator, for boards that are only tested for check and
+     * never evaluated.
+     */
+    public Chessboard acquireCopyWithoutAccumulator(Chessboard source)
+    {
+        return acquire().copyFrom(source, false);
+    }
+
+    /**
+     * Returns a board to the pool.
+     * @throws IllegalArgumentException If the board is not currently checked out of this pool, e.g. it was
+     * released twice, acquired on another thread or never came from a pool at all.
+     */
+    public void release(Chessboard board)
+    {
+        if (board.owner != this) throw new IllegalArgumentException("Board was not acquired from this thread's pool");
+
+        board.owner = null;
+        outstanding--;
+
+        if (free.size() < MAX_POOLED) free.append(board);
+    }
+
+    /**
+     * The number of boards acquired from this pool and not released yet.
+     */
+    public int getOutstanding() { return outstanding; }
+
+    public long getAllocations() { return allocations; }
+
+    public long getReuses() { return reuses; }
+
+    public int getPooledCount() { return free.size(); }
+
+    /**
+     * Leak check for tests: fails if any board acquired on this thread has not been released.
+     * @throws IllegalStateException If boards are still outstanding.
+     */
+    public void assertNoLeaks()
+    {
+        if (outstanding != 0) throw new IllegalStateException(outstanding + " pooled board(s) were not released");
+    }
+
+    /**
+     * Drops the pooled boards and resets the statistics. Boards still checked out stay counted as outstanding.
+     */
+    public void clear()
+    {
+        free.clear();
+        allocations = 0;
+        reuses = 0;
+    }
+}
@@ -4,7 +4,6 @@ import lombok.Getter;
 import project.chess.datastructure.*;
 import project.chess.piece.Piece;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -20,9 +19,17 @@ import java.util.Set;
 public class Game
 {
     private Chessboard board;
+    // Set once the board may be referenced outside this game, so it is copied before being changed in place
+    private boolean boardShared;
     @Getter
     private Piece.Colour currentTurn;
-    private final List<String> moveHistorySAN;
+    // Move codes of the game so far, shared with the games copied from this one
+    private PersistentIntStack moveHistory;
+    // The same moves in SAN, recorded as they are played so that the history never has to be replayed
+    private PersistentStack<String> sanHistory;
+    // Records of the moves that can be taken back, newest on top, and of the moves taken back that can be replayed
+    private PersistentStack<UndoRecord> undoStack;
+    private PersistentStack<UndoRecord> redoStack;
     private int halfMoveClock;
     private int fullMoveNumber;
 
@@ -32,8 +39,12 @@ public class Game
     public Game()
     {
         board = new Chessboard();
+        boardShared = false;
         currentTurn = Piece.Colour.WHITE;
-        moveHistorySAN = new ArrayList<>();
+        moveHistory = PersistentIntStack.empty();
+        sanHistory = PersistentStack.empty();
+        undoStack = PersistentStack.empty();
+        redoStack = PersistentStack.empty();
         halfMoveClock = 0;
         fullMoveNumber = 1;
         result = GameResult.ONGOING;
@@ -41,68 +52,130 @@ public class Game
     }
 
     /**
-     * Copy constructor
+     * Copy constructor. The move history and undo records are shared rather than copied, so this is O(1) in the
+     * game length.
      */
     public Game(Game other)
     {
         board = new Chessboard(other.board);
+        boardShared = false;
         currentTurn = other.currentTurn;
-        moveHistorySAN = new ArrayList<>(other.moveHistorySAN);
+        moveHistory = other.moveHistory;
+        sanHistory = other.sanHistory;
+        undoStack = other.undoStack;
+        redoStack = other.redoStack;
         halfMoveClock = other.halfMoveClock;
         fullMoveNumber = other.fullMoveNumber;
         result = other.result;
         gameOver = other.gameOver;
     }
 
-    public Chessboard getBoard() { return board; }
+    /**
+     * Returns the current board. The game leaves it as it is from then on: taking back or replaying moves
+     * works on a copy.
+     */
+    public Chessboard getBoard()
+    {
+        boardShared = true;
+        return board;
+    }
 
     /**
-     * Attempts to make a legal move in SAN notation.
-     * @param sanMove The move in SAN notation.
-     * @return true If the move was legal and made, false otherwise.
+     * Returns the Zobrist hash of the current position, including the side to move.
+     * Positions reached through different move orders hash the same.
      */
-    public boolean makeValidMove(String sanMove)
+    public long getPositionHash()
     {
-        if (gameOver) return false;
+        return board.getZobristHash() ^ Zobrist.sideToMoveKey(currentTurn);
+    }
 
-        // Generate legal moves for the current player
-        List<Pair<String, Chessboard>> legalMoves = board.generateAllLegalMoveBoards(currentTurn);
+    /**
+     * Attempts to make a legal move in SAN or UCI notation.
+     * @param move The move, e.g. "Nf3", "exd5", "O-O" or "e2e4", "e7e8q".
+     * @return true If the move was legal and made, false otherwise; see {@link #makeMove(String)} for the reason.
+     */
+    public boolean makeValidMove(String move)
+    {
+        if (gameOver) return false;
 
-        for (Pair<String, Chessboard> move : legalMoves)
+        try
         {
-            String legalSAN = move.getKey();
-
-            if (legalSAN.equals(sanMove))
-            {
-                board = move.getValue();
-                moveHistorySAN.add(sanMove);
+            makeMove(move);
+            return true;
+        }
+        catch (IllegalArgumentException e)
+        {
+            return false; // Illegal move
+        }
+    }
 
-                updateHalfMoveClock(sanMove);
-                if (currentTurn == Piece.Colour.BLACK)
-                {
-                    fullMoveNumber++;
-                }
+    /**
+     * Makes a move in SAN or UCI notation after checking that it is legal, see {@link MoveParser}.
+     * @param move The move, e.g. "Nf3", "exd5", "O-O" or "e2e4", "e7e8q".
+     * @throws IllegalArgumentException If the game is over, or the move is malformed, impossible, illegal or
+     * ambiguous; the message says which.
+     */
+    public void makeMove(String move)
+    {
+        if (gameOver) throw new IllegalArgumentException(move + ": the game is over");
 
-                updateGameStatus();
-                switchTurn();
+        makeMove(MoveParser.parse(board, currentTurn, move));
+    }
 
-                return true;
-            }
+    /**
+     * Makes a move without validation. Assumes the move is valid.
+     * @param move A {@link Pair} containing SAN notation and resulting {@link Chessboard}. The board becomes the
+     * game's board, but is not changed by later undos and redos.
+     * @throws IllegalArgumentException If the board does not differ from the current one by a move of the side
+     * to move; the game is left unchanged.
+     */
+    public void makeMove(Pair<String, Chessboard> move)
+    {
+        int code = inferMove(board, move.getValue(), currentTurn);
+        if (code == Move.NONE)
+        {
+            throw new IllegalArgumentException(move.getKey() + ": the board is not reached by a " + currentTurn.toString().toLowerCase() + " move");
         }
 
-        return false; // Illegal move
+        playMove(code, move.getKey(), move.getValue());
+        boardShared = true;
     }
 
     /**
-     * Makes a move without validation. Assumes the move is valid.
-     * @param move A {@link Pair} containing SAN notation and resulting {@link Chessboard}.
+     * Makes a move given as a {@link Move} code, without validation. Assumes the move is legal.
+     * @param move The move code.
      */
-    public void makeMove(Pair<String, Chessboard> move)
+    public void makeMove(int move)
     {
-        String sanMove = move.getKey();
+        playMove(move, board.toSAN(move), board.copyWithMove(move));
+    }
 
-        board = move.getValue();
-        moveHistorySAN.add(sanMove);
+    private void playMove(int move, String sanMove, Chessboard next)
+    {
+        undoStack = undoStack.push(createUndoRecord(move));
+        redoStack = PersistentStack.empty();
+
+        board = next;
+        boardShared = false;
+        advance(move, sanMove);
+    }
+
+    private UndoRecord createUndoRecord(int move)
+    {
+        int capturedSquare = board.getCaptureSquare(move);
+        Piece captured = (capturedSquare < 0) ? null : board.getPiece(capturedSquare);
+
+        return new UndoRecord(move, captured, capturedSquare, board.getCastlingMask(), board.getEnPassantTarget(),
+                halfMoveClock, fullMoveNumber, result, getPositionHash());
+    }
+
+    /**
+     * Updates the history, clocks, turn and status once the board shows the position after the move.
+     */
+    private void advance(int move, String sanMove)
+    {
+        moveHistory = moveHistory.push(move);
+        sanHistory = sanHistory.push(sanMove);
 
         updateHalfMoveClock(sanMove);
         if (currentTurn == Piece.Colour.BLACK)
@@ -110,8 +183,123 @@ public class Game
             fullMoveNumber++;
         }
 
+        // The status is checked for the side that now has to reply to the move
+        switchTurn();
         updateGameStatus();
+    }
+
+    /**
+     * Works out the move code of a move given only as the boards before and after it, by finding the squares
+     * the mover's pieces left and arrived on. For castling, the king's squares are used.
+     * @return The move code, or {@link Move#NONE} if the boards do not differ by a move of that colour.
+     */
+    private static int inferMove(Chessboard before, Chessboard after, Piece.Colour colour)
+    {
+        int from = -1;
+        int to = -1;
+
+        for (int square = 0; square < Chessboard.BOARD_SIZE; square++)
+        {
+            Piece oldPiece = before.getPiece(square);
+            Piece newPiece = after.getPiece(square);
+            boolean wasOwn = oldPiece != null && oldPiece.getColour() == colour;
+            boolean isOwn = newPiece != null && newPiece.getColour() == colour;
+
+            if (wasOwn && !isOwn && (from < 0 || oldPiece.getType() == PieceType.KING)) from = square;
+            if (isOwn && !wasOwn && (to < 0 || newPiece.getType() == PieceType.KING)) to = square;
+        }
+
+        if (from < 0 || to < 0) return Move.NONE;
+
+        PieceType movedType = before.getPiece(from).getType();
+        PieceType arrivedType = after.getPiece(to).getType();
+        return Move.encode(from, to, (arrivedType != movedType) ? arrivedType : null);
+    }
+
+    /**
+     * Takes back the last move, restoring the board in place from its undo record rather than replaying the game.
+     * A board that is also held outside the game (see {@link #getBoard()}) is copied first and left unchanged.
+     * @return true If a move was taken back, false if there was nothing to undo.
+     * @throws IllegalStateException If the restored position does not hash like the one before the move.
+     */
+    public boolean undo()
+    {
+        if (undoStack.isEmpty()) return false;
+
+        UndoRecord record = undoStack.peek();
+        undoStack = undoStack.pop();
+        redoStack = redoStack.push(record);
+
+        ownBoard();
+        board.unmakeMove(record.move, record.captured, record.capturedSquare, record.castlingMask, record.enPassantTarget);
+        moveHistory = moveHistory.pop();
+        sanHistory = sanHistory.pop();
+
+        halfMoveClock = record.halfMoveClock;
+        fullMoveNumber = record.fullMoveNumber;
+        result = record.result;
+        gameOver = result != GameResult.ONGOING;
         switchTurn();
+
+        // The incremental hashes make this check almost free, and a mismatch means the board was changed behind the game's back
+        if (getPositionHash() != record.positionHash) throw new IllegalStateException("Undo did not restore the position before the move");
+
+        return true;
+    }
+
+    /**
+     * Replays the last move taken back by {@link #undo()}. Making any other move discards the moves left to redo.
+     * @return true If a move was replayed, false if there was nothing to redo.
+     */
+    public boolean redo()
+    {
+        if (redoStack.isEmpty()) return false;
+
+        UndoRecord record = redoStack.peek();
+        redoStack = redoStack.pop();
+        undoStack = undoStack.push(record);
+
+        ownBoard();
+        String sanMove = board.toSAN(record.move);
+        board.makeMove(record.move);
+        advance(record.move, sanMove);
+
+        return true;
+    }
+
+    /**
+     * Replaces the board with a private copy if it may be held outside the game, before it is changed in place.
+     * Only the first undo or redo after the board was handed out pays for the copy.
+     */
+    private void ownBoard()
+    {
+        if (!boardShared) return;
+
+        board = new Chessboard(board);
+        boardShared = false;
+    }
+
+    public boolean canUndo() { return !undoStack.isEmpty(); }
+
+    public boolean canRedo() { return !redoStack.isEmpty(); }
+
+    /**
+     * Steps back or forward through the game to the position after the given number of plies, one undo or
+     * redo per ply.
+     * @param ply The target ply, counted from the start of the move history (see {@link #getPly()}).
+     * @throws IllegalArgumentException If the ply is further back than the undo records or further forward than
+     * the moves left to redo.
+     */
+    public void goToPly(int ply)
+    {
+        if (ply < getPly() - undoStack.size() || ply > getPly() + redoStack.size())
+        {
+            throw new IllegalArgumentException("Ply " + ply + " is out of reach: the game can go from ply "
+                    + (getPly() - undoStack.size()) + " to " + (getPly() + redoStack.size()));
+        }
+
+        while (getPly() > ply) undo();
+        while (getPly() < ply) redo();
     }
 
     private void updateHalfMoveClock(String sanMove)
@@ -153,7 +341,33 @@ public class Game
         currentTurn = (currentTurn == Piece.Colour.WHITE) ? Piece.Colour.BLACK : Piece.Colour.WHITE;
     }
 
-    public List<String> getMoveHistory() { return  new ArrayList<>(moveHistorySAN); }
+    /**
+     * Returns the moves of the game in SAN notation. The strings are recorded as the moves are played and shared
+     * with copies of the game, so this only copies them into a new list.
+     */
+    public List<String> getMoveHistory() { return sanHistory.toList(); }
+
+    /**
+     * Returns the moves of the game as {@link Move} codes, in the order they were played.
+     */
+    public int[] getMoveCodes() { return moveHistory.toArray(); }
+
+    /**
+     * Returns the last move played as a {@link Move} code, or {@link Move#NONE} if no move has been played.
+     */
+    public int getLastMove() { return moveHistory.isEmpty() ? Move.NONE : moveHistory.peek(); }
+
+    /**
+     * Returns the last move played in SAN notation, or null if no move has been played.
+     */
+    public String getLastMoveSAN() { return sanHistory.isEmpty() ? null : sanHistory.peek(); }
+
+    public int getPly() { return moveHistory.size(); }
+
+    /**
+     * Plies since the last capture or pawn move, for the fifty-move rule.
+     */
+    public int getHalfMoveClock() { return halfMoveClock; }
 
     public GameResult getResult() { return result; }
 
@@ -165,8 +379,12 @@ public class Game
     public void reset()
     {
         board = new Chessboard();
+        boardShared = false;
         currentTurn = Piece.Colour.WHITE;
-        moveHistorySAN.clear();
+        moveHistory = PersistentIntStack.empty();
+        sanHistory = PersistentStack.empty();
+        undoStack = PersistentStack.empty();
+        redoStack = PersistentStack.empty();
         halfMoveClock = 0;
         fullMoveNumber = 1;
         result = GameResult.ONGOING;
@@ -211,6 +429,7 @@ public class Game
         if (parts.length != 6)
             throw new IllegalArgumentException("Invalid FEN string: must have 6 fields");
 
+        ownBoard();
         board.importBasicFEN(parts[0]);
 
         // Parse active colour
@@ -241,7 +460,10 @@ public class Game
             throw new IllegalArgumentException("Invalid format: full move number must be an integer");
         }
 
-        moveHistorySAN.clear();
+        moveHistory = PersistentIntStack.empty();
+        sanHistory = PersistentStack.empty();
+        undoStack = PersistentStack.empty();
+        redoStack = PersistentStack.empty();
         gameOver = false;
         result = GameResult.ONGOING;
     }
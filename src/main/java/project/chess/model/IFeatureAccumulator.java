@@ -0,0 +1,27 @@
+package project.chess.model;
+
+import project.chess.piece.Piece;
+
+/**
+ * Interface for derived state that a {@link Chessboard} keeps up to date as pieces are placed and removed,
+ * such as the first layer of a neural network evaluator. Attached with {@link Chessboard#attachAccumulator};
+ * copies of the board carry their own copy of it, so it follows every move made on them.
+ */
+
+public interface IFeatureAccumulator
+{
+    /**
+     * Returns to the state of an empty board.
+     */
+    void reset();
+    void addPiece(Piece piece, int square);
+    void removePiece(Piece piece, int square);
+    IFeatureAccumulator copy();
+
+    /**
+     * Overwrites this accumulator with the state of another one, reusing its own storage.
+     * @return False if the two are not compatible (e.g. they belong to different networks), in which case this
+     * accumulator is left unchanged and the caller should fall back to {@link #copy}. The default always is.
+     */
+    default boolean copyFrom(IFeatureAccumulator other) { return false; }
+}
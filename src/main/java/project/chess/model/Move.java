@@ -0,0 +1,55 @@
+package project.chess.model;
+
+/**
+ * Utility class for compact move codes, which pack a move into a single int:
+ * bits 0-5 hold the origin square, bits 6-11 the target square and bits 12-14 the promotion piece
+ * ({@link PieceType} ordinal + 1, or 0 for no promotion).
+ * Castling is encoded as the king's two-square move, and en passant as the pawn's diagonal move.
+ */
+
+public class Move
+{
+    // a1 to a1 can never be a move, so 0 is free to mean "no move"
+    public static final int NONE = 0;
+
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+
+    public static int encode(int from, int to)
+    {
+        return from | (to << TO_SHIFT);
+    }
+
+    public static int encode(int from, int to, PieceType promotion)
+    {
+        int promotionBits = (promotion == null) ? 0 : promotion.ordinal() + 1;
+        return encode(from, to) | (promotionBits << PROMOTION_SHIFT);
+    }
+
+    public static int getFrom(int move) { return move & SQUARE_MASK; }
+
+    public static int getTo(int move) { return (move >>> TO_SHIFT) & SQUARE_MASK; }
+
+    /**
+     * Returns the piece a pawn promotes to, or null if the move is not a promotion.
+     */
+    public static PieceType getPromotion(int move)
+    {
+        int promotionBits = (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+        return (promotionBits == 0) ? null : PieceType.values()[promotionBits - 1];
+    }
+
+    public static boolean isPromotion(int move) { return ((move >>> PROMOTION_SHIFT) & PROMOTION_MASK) != 0; }
+
+    /**
+     * Converts a move code to UCI coordinate notation (e.g. e2e4, e7e8q).
+     */
+    public static String toUCI(int move)
+    {
+        String uci = BoardUtils.toCoordinate(getFrom(move)) + BoardUtils.toCoordinate(getTo(move));
+        PieceType promotion = getPromotion(move);
+        return (promotion == null) ? uci : uci + Character.toLowerCase(promotion.getAlgebraic().charAt(0));
+    }
+}
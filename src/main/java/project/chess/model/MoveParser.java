@@ -0,0 +1,214 @@
+package project.chess.model;
+
+import project.chess.datastructure.IntDynamicArray;
+import project.chess.piece.Piece;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class that turns a move typed in SAN (e.g. Nf3, exd5, e8=Q, O-O) or UCI coordinate notation
+ * (e.g. e2e4, e7e8q) into a legal {@link Move} code.
+ *
+ * @details
+ * - Only the pieces that could make the move are looked at: those of the named type and colour on the
+ *   disambiguating file or rank, if given. Normally a single legality test is then needed, so the cost does
+ *   not depend on how many moves the position has.
+ * - Every failure is an {@link IllegalArgumentException} whose message says what is wrong with the move.
+ * - Check and mate suffixes (+, #) and annotations (!, ?) are accepted and ignored.
+ */
+
+public class MoveParser
+{
+    private static final Pattern UCI_PATTERN = Pattern.compile("([a-h][1-8])([a-h][1-8])([qrbn])?");
+    private static final Pattern SAN_PATTERN = Pattern.compile("([KQRBN])?([a-h])?([1-8])?(x)?([a-h][1-8])(?:=?([QRBN]))?");
+    private static final Pattern CASTLING_PATTERN = Pattern.compile("([O0])-\\1(-\\1)?");
+    private static final Pattern SUFFIX_PATTERN = Pattern.compile("[+#]?[!?]*$");
+
+    /**
+     * Parses a move in either SAN or UCI notation.
+     * @return The legal move code.
+     * @throws IllegalArgumentException If the notation is malformed, or the move is impossible, illegal or ambiguous.
+     */
+    public static int parse(Chessboard board, Piece.Colour colour, String notation)
+    {
+        if (notation == null || notation.isBlank()) throw new IllegalArgumentException("No move given");
+
+        String trimmed = notation.trim();
+        return UCI_PATTERN.matcher(trimmed).matches() ? parseUCI(board, colour, trimmed) : parseSAN(board, colour, trimmed);
+    }
+
+    /**
+     * Parses a move in UCI coordinate notation, e.g. e2e4, e1g1 (castling) or e7e8q.
+     * @throws IllegalArgumentException If the notation is malformed, or the move is impossible or illegal.
+     */
+    public static int parseUCI(Chessboard board, Piece.Colour colour, String notation)
+    {
+        Matcher matcher = UCI_PATTERN.matcher(notation.trim());
+        if (!matcher.matches()) throw new IllegalArgumentException("Invalid UCI move: '" + notation + "'");
+
+        int from = BoardUtils.toIndex(matcher.group(1));
+        int to = BoardUtils.toIndex(matcher.group(2));
+        PieceType promotion = (matcher.group(3) == null) ? null : PieceType.fromFENSymbol(matcher.group(3).charAt(0));
+
+        Piece piece = board.getPiece(from);
+        if (piece == null) throw new IllegalArgumentException(notation + ": there is no piece on " + matcher.group(1));
+        if (piece.getColour() != colour)
+        {
+            throw new IllegalArgumentException(notation + ": the piece on " + matcher.group(1) + " is not " + describe(colour));
+        }
+        if (!piece.generateMoves(from, board).contains(to))
+        {
+            throw new IllegalArgumentException(notation + ": the " + describe(piece) + " on " + matcher.group(1)
+                    + " cannot move to " + matcher.group(2));
+        }
+
+        int move = Move.encode(from, to, checkPromotion(notation, piece, to, promotion));
+        checkLegal(board, notation, move, colour);
+        return move;
+    }
+
+    /**
+     * Parses a move in standard algebraic notation.
+     * @throws IllegalArgumentException If the notation is malformed, or the move is impossible, illegal or ambiguous.
+     */
+    public static int parseSAN(Chessboard board, Piece.Colour colour, String notation)
+    {
+        String san = SUFFIX_PATTERN.matcher(notation.trim()).replaceFirst("");
+
+        if (CASTLING_PATTERN.matcher(san).matches()) return parseCastling(board, colour, notation, san.length() > 3);
+
+        Matcher matcher = SAN_PATTERN.matcher(san);
+        if (!matcher.matches()) throw new IllegalArgumentException("Invalid SAN move: '" + notation + "'");
+
+        PieceType type = (matcher.group(1) == null) ? PieceType.PAWN : PieceType.fromFENSymbol(matcher.group(1).charAt(0));
+        int fromFile = (matcher.group(2) == null) ? -1 : matcher.group(2).charAt(0) - 'a';
+        int fromRank = (matcher.group(3) == null) ? -1 : matcher.group(3).charAt(0) - '1';
+        boolean capture = matcher.group(4) != null;
+        int to = BoardUtils.toIndex(matcher.group(5));
+        PieceType promotion = (matcher.group(6) == null) ? null : PieceType.fromFENSymbol(matcher.group(6).charAt(0));
+
+        if (type == PieceType.PAWN)
+        {
+            // A pawn only names its own file, and only when it captures
+            if (fromRank >= 0) throw new IllegalArgumentException(notation + ": pawn moves cannot name a rank to move from");
+            if (capture && fromFile < 0) throw new IllegalArgumentException(notation + ": pawn captures must name the file they are made from");
+            if (!capture && fromFile >= 0) throw new IllegalArgumentException("Invalid SAN move: '" + notation + "'");
+            if (!capture) fromFile = BoardUtils.getFile(to);
+        }
+        else if (promotion != null)
+        {
+            throw new IllegalArgumentException(notation + ": only pawns can promote");
+        }
+
+        // Only the pieces that could reach the target square are looked at
+        IntDynamicArray candidates = new IntDynamicArray(2);
+
+        for (int from = 0; from < Chessboard.BOARD_SIZE; from++)
+        {
+            Piece piece = board.getPiece(from);
+            if (piece == null || piece.getColour() != colour || piece.getType() != type) continue;
+            if (fromFile >= 0 && BoardUtils.getFile(from) != fromFile) continue;
+            if (fromRank >= 0 && BoardUtils.getRank(from) != fromRank) continue;
+            if (!piece.generateMoves(from, board).contains(to)) continue;
+
+            candidates.append(Move.encode(from, to, checkPromotion(notation, piece, to, promotion)));
+        }
+
+        if (candidates.isEmpty())
+        {
+            throw new IllegalArgumentException(notation + ": no " + describe(colour) + " " + describe(type)
+                    + " can move to " + matcher.group(5));
+        }
+
+        int move = candidates.get(0);
+        if (candidates.size() == 1)
+        {
+            checkLegal(board, notation, move, colour);
+        }
+        else
+        {
+            // Several pieces fit the notation, so it is only valid if exactly one of them can legally move
+            int legalCount = 0;
+            StringBuilder squares = new StringBuilder();
+
+            for (int i = 0; i < candidates.size(); i++)
+            {
+                if (!board.isLegalMove(candidates.get(i))) continue;
+
+                move = candidates.get(i);
+                if (legalCount++ > 0) squares.append(" and ");
+                squares.append(BoardUtils.toCoordinate(Move.getFrom(move)));
+            }
+
+            if (legalCount == 0)
+            {
+                throw new IllegalArgumentException(notation + ": illegal move, it would leave the " + describe(colour) + " king in check");
+            }
+            if (legalCount > 1)
+            {
+                throw new IllegalArgumentException(notation + ": ambiguous move, " + describe(type) + "s on " + squares
+                        + " can each move to " + matcher.group(5));
+            }
+        }
+
+        if (capture && board.getCaptureSquare(move) < 0)
+        {
+            throw new IllegalArgumentException(notation + ": not a capture, there is nothing to take on " + matcher.group(5));
+        }
+
+        return move;
+    }
+
+    private static int parseCastling(Chessboard board, Piece.Colour colour, String notation, boolean queenside)
+    {
+        int from = board.getKingPosition(colour);
+        if (from < 0) throw new IllegalArgumentException(notation + ": there is no " + describe(colour) + " king");
+
+        int to = from + (queenside ? -2 : 2);
+        Piece king = board.getPiece(from);
+        if (to < 0 || to >= Chessboard.BOARD_SIZE || !king.generateMoves(from, board).contains(to))
+        {
+            throw new IllegalArgumentException(notation + ": " + describe(colour) + " cannot castle "
+                    + (queenside ? "queenside" : "kingside") + " in this position");
+        }
+
+        int move = Move.encode(from, to);
+        checkLegal(board, notation, move, colour);
+        return move;
+    }
+
+    /**
+     * Checks that a promotion piece is given exactly when a pawn reaches the last rank.
+     * @return The promotion piece, or null.
+     */
+    private static PieceType checkPromotion(String notation, Piece piece, int to, PieceType promotion)
+    {
+        int rank = BoardUtils.getRank(to);
+        boolean lastRank = (piece.getColour() == Piece.Colour.WHITE) ? rank == Chessboard.BOARD_WIDTH - 1 : rank == 0;
+        boolean promotes = piece.getType() == PieceType.PAWN && lastRank;
+
+        if (promotes && promotion == null) throw new IllegalArgumentException(notation + ": a pawn reaching the last rank must name its promotion piece");
+        if (!promotes && promotion != null) throw new IllegalArgumentException(notation + ": this move is not a promotion");
+        if (promotion == PieceType.KING || promotion == PieceType.PAWN)
+        {
+            throw new IllegalArgumentException(notation + ": a pawn cannot promote to a " + describe(promotion));
+        }
+
+        return promotion;
+    }
+
+    private static void checkLegal(Chessboard board, String notation, int move, Piece.Colour colour)
+    {
+        if (!board.isLegalMove(move))
+        {
+            throw new IllegalArgumentException(notation + ": illegal move, it would leave the " + describe(colour) + " king in check");
+        }
+    }
+
+    private static String describe(Piece.Colour colour) { return colour.toString().toLowerCase(); }
+
+    private static String describe(PieceType type) { return type.toString().toLowerCase(); }
+
+    private static String describe(Piece piece) { return describe(piece.getColour()) + " " + describe(piece.getType()); }
+}
@@ -0,0 +1,153 @@
+package project.chess.model;
+
+import project.chess.piece.Piece;
+
+/**
+ * Material values and piece-square tables for a tapered evaluation, in centipawns.
+ * Every piece type has a middlegame and an endgame table; the two scores are blended by the game phase,
+ * which runs from {@link #MAX_PHASE} (all minor and major pieces on the board) down to 0 (kings and pawns only).
+ * {@link Chessboard} keeps the sums of these values up to date as pieces are set, so reading them is O(1).
+ */
+
+public class PieceSquareTables
+{
+    public static final int MAX_PHASE = 24;
+
+    // Indexed by PieceType ordinal: pawn, knight, bishop, rook, queen, king
+    private static final int[] MIDGAME_VALUES = { 100, 320, 330, 500, 900, 0 };
+    private static final int[] ENDGAME_VALUES = { 120, 300, 320, 520, 900, 0 };
+    private static final int[] PHASE_WEIGHTS = { 0, 1, 1, 2, 4, 0 };
+
+    // Tables are written as seen from White's side, so the first row is rank 8 and the last row rank 1
+    private static final int[] PAWN_MIDGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             10,  10,  20,  30,  30,  20,  10,  10,
+              5,   5,  10,  25,  25,  10,   5,   5,
+              0,   0,   0,  20,  20,   0,   0,   0,
+              5,  -5, -10,   0,   0, -10,  -5,   5,
+              5,  10,  10, -20, -20,  10,  10,   5,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    // In the endgame, how far a pawn has advanced matters far more than which file it is on
+    private static final int[] PAWN_ENDGAME = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+             80,  80,  80,  80,  80,  80,  80,  80,
+             50,  50,  50,  50,  50,  50,  50,  50,
+             30,  30,  30,  30,  30,  30,  30,  30,
+             20,  20,  20,  20,  20,  20,  20,  20,
+             10,  10,  10,  10,  10,  10,  10,  10,
+              0,   0,   0,   0,   0,   0,   0,   0,
+              0,   0,   0,   0,   0,   0,   0,   0
+    };
+
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20,   0,   0,   0,   0, -20, -40,
+            -30,   0,  10,  15,  15,  10,   0, -30,
+            -30,   5,  15,  20,  20,  15,   5, -30,
+            -30,   0,  15,  20,  20,  15,   0, -30,
+            -30,   5,  10,  15,  15,  10,   5, -30,
+            -40, -20,   0,   5,   5,   0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] BISHOP = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,  10,  10,   5,   0, -10,
+            -10,   5,   5,  10,  10,   5,   5, -10,
+            -10,   0,  10,  10,  10,  10,   0, -10,
+            -10,  10,  10,  10,  10,  10,  10, -10,
+            -10,   5,   0,   0,   0,   0,   5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+    };
+
+    private static final int[] ROOK = {
+              0,   0,   0,   0,   0,   0,   0,   0,
+              5,  10,  10,  10,  10,  10,  10,   5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+             -5,   0,   0,   0,   0,   0,   0,  -5,
+              0,   0,   0,   5,   5,   0,   0,   0
+    };
+
+    private static final int[] QUEEN = {
+            -20, -10, -10,  -5,  -5, -10, -10, -20,
+            -10,   0,   0,   0,   0,   0,   0, -10,
+            -10,   0,   5,   5,   5,   5,   0, -10,
+             -5,   0,   5,   5,   5,   5,   0,  -5,
+              0,   0,   5,   5,   5,   5,   0,  -5,
+            -10,   5,   5,   5,   5,   5,   0, -10,
+            -10,   0,   5,   0,   0,   0,   0, -10,
+            -20, -10, -10,  -5,  -5, -10, -10, -20
+    };
+
+    // Middlegame kings belong behind their pawns, endgame kings in the centre
+    private static final int[] KING_MIDGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+             20,  20,   0,   0,   0,   0,  20,  20,
+             20,  30,  10,   0,   0,  10,  30,  20
+    };
+
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10,   0,   0, -10, -20, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  30,  40,  40,  30, -10, -30,
+            -30, -10,  20,  30,  30,  20, -10, -30,
+            -30, -30,   0,   0,   0,   0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[][] MIDGAME_TABLES = { PAWN_MIDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_MIDGAME };
+    private static final int[][] ENDGAME_TABLES = { PAWN_ENDGAME, KNIGHT, BISHOP, ROOK, QUEEN, KING_ENDGAME };
+
+    /**
+     * Maps a board square to an index into the tables above.
+     * Square 0 is a1 (see {@link BoardUtils}), but the tables start at a8, so White's squares are flipped
+     * vertically. Black's are used as they are, which mirrors the tables for Black.
+     */
+    private static int tableIndex(Piece.Colour colour, int square)
+    {
+        return (colour == Piece.Colour.WHITE) ? square ^ 56 : square;
+    }
+
+    /**
+     * Middlegame value of a piece on a square, from its own side's point of view.
+     */
+    public static int midgameValue(PieceType type, Piece.Colour colour, int square)
+    {
+        return MIDGAME_VALUES[type.ordinal()] + MIDGAME_TABLES[type.ordinal()][tableIndex(colour, square)];
+    }
+
+    /**
+     * Endgame value of a piece on a square, from its own side's point of view.
+     */
+    public static int endgameValue(PieceType type, Piece.Colour colour, int square)
+    {
+        return ENDGAME_VALUES[type.ordinal()] + ENDGAME_TABLES[type.ordinal()][tableIndex(colour, square)];
+    }
+
+    public static int phaseWeight(PieceType type) { return PHASE_WEIGHTS[type.ordinal()]; }
+
+    /**
+     * Blends middlegame and endgame scores by phase.
+     * @param phase The summed phase weights of the pieces on the board; capped at {@link #MAX_PHASE}
+     *              since promotions can push it higher.
+     */
+    public static int taper(int midgameScore, int endgameScore, int phase)
+    {
+        int clampedPhase = Math.min(phase, MAX_PHASE);
+        return (midgameScore * clampedPhase + endgameScore * (MAX_PHASE - clampedPhase)) / MAX_PHASE;
+    }
+}
@@ -0,0 +1,37 @@
+package project.chess.model;
+
+import project.chess.piece.Piece;
+
+/**
+ * Everything a move destroys, so that {@link Game#undo()} can take it back without replaying the game:
+ * the captured piece and the state of the board and game from before the move.
+ */
+
+final class UndoRecord
+{
+    final int move;
+    // Null if the move was not a capture; for en passant the square differs from the move's target square
+    final Piece captured;
+    final int capturedSquare;
+
+    final int castlingMask;
+    final int enPassantTarget;
+    final int halfMoveClock;
+    final int fullMoveNumber;
+    final GameResult result;
+    final long positionHash;
+
+    UndoRecord(int move, Piece captured, int capturedSquare, int castlingMask, int enPassantTarget,
+               int halfMoveClock, int fullMoveNumber, GameResult result, long positionHash)
+    {
+        this.move = move;
+        this.captured = captured;
+        this.capturedSquare = capturedSquare;
+        this.castlingMask = castlingMask;
+        this.enPassantTarget = enPassantTarget;
+        this.halfMoveClock = halfMoveClock;
+        this.fullMoveNumber = fullMoveNumber;
+        this.result = result;
+        this.positionHash = positionHash;
+    }
+}
@@ -0,0 +1,68 @@
+package project.chess.model;
+
+import project.chess.piece.Piece;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of chess positions.
+ * A position's hash is the XOR of the keys of every piece on its square, its castling rights,
+ * its en passant file (if a capture is possible) and the side to move.
+ * Keys are generated from a fixed seed so hashes are stable between runs.
+ */
+
+public class Zobrist
+{
+    private static final long SEED = 0x5EED_C0FFEEL;
+
+    // Indexed by [piece index][square], see pieceIndex()
+    private static final long[][] PIECE_SQUARE_KEYS = new long[12][Chessboard.BOARD_SIZE];
+    private static final long[] CASTLING_KEYS = new long[16];
+    private static final long[] EN_PASSANT_FILE_KEYS = new long[Chessboard.BOARD_WIDTH];
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (long[] squareKeys : PIECE_SQUARE_KEYS)
+        {
+            for (int square = 0; square < squareKeys.length; square++) squareKeys[square] = random.nextLong();
+        }
+
+        // Castling keys are combined per right, so a set of rights hashes to the XOR of its members
+        long[] rightKeys = new long[CastlingRight.values().length];
+        for (int i = 0; i < rightKeys.length; i++) rightKeys[i] = random.nextLong();
+
+        for (int mask = 0; mask < CASTLING_KEYS.length; mask++)
+        {
+            for (int i = 0; i < rightKeys.length; i++)
+            {
+                if ((mask & (1 << i)) != 0) CASTLING_KEYS[mask] ^= rightKeys[i];
+            }
+        }
+
+        for (int file = 0; file < EN_PASSANT_FILE_KEYS.length; file++) EN_PASSANT_FILE_KEYS[file] = random.nextLong();
+
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    /**
+     * Maps a piece to a row of the key table: 0-5 for white pawn to king, 6-11 for black.
+     */
+    public static int pieceIndex(Piece piece)
+    {
+        return piece.getType().ordinal() + (piece.getColour() == Piece.Colour.WHITE ? 0 : PieceType.values().length);
+    }
+
+    public static long pieceKey(Piece piece, int square) { return PIECE_SQUARE_KEYS[pieceIndex(piece)][square]; }
+
+    /**
+     * @param castlingMask A bitmask with bit {@code i} set if {@code CastlingRight.values()[i]} is available.
+     */
+    public static long castlingKey(int castlingMask) { return CASTLING_KEYS[castlingMask]; }
+
+    public static long enPassantKey(int file) { return EN_PASSANT_FILE_KEYS[file]; }
+
+    public static long sideToMoveKey(Piece.Colour colour) { return colour == Piece.Colour.BLACK ? BLACK_TO_MOVE_KEY : 0L; }
+}
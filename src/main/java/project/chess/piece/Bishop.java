@@ -20,4 +20,10 @@ public class Bishop extends Piece
     {
         return generateSlidingMoves(position, board, BISHOP_DIRECTIONS);
     }
+
+    @Override
+    public int countMobility(int position, Chessboard board, long excludedSquares)
+    {
+        return countSlidingMobility(position, board, BISHOP_DIRECTIONS, excludedSquares);
+    }
 }
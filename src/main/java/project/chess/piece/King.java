@@ -3,6 +3,7 @@ package project.chess.piece;
 import project.chess.model.BoardUtils;
 import project.chess.model.CastlingRight;
 import project.chess.model.Chessboard;
+import project.chess.model.ChessboardPool;
 import project.chess.model.PieceType;
 
 import java.util.ArrayList;
@@ -125,8 +126,12 @@ public class King extends Piece
 
     private boolean wouldBeInCheck(Chessboard board, int from, int to)
     {
-        Chessboard testBoard = new Chessboard(board);
+        ChessboardPool pool = ChessboardPool.get();
+        Chessboard testBoard = pool.acquireCopyWithoutAccumulator(board);
         testBoard.move(from, to);
-        return testBoard.isInCheck(this.colour);
+
+        boolean inCheck = testBoard.isInCheck(this.colour);
+        pool.release(testBoard);
+        return inCheck;
     }
 }
@@ -50,4 +50,25 @@ public class Knight extends Piece
 
         return moves;
     }
+
+    @Override
+    public int countMobility(int position, Chessboard board, long excludedSquares)
+    {
+        int count = 0;
+        int col = BoardUtils.getFile(position);
+
+        for (int offset : KNIGHT_DIRECTIONS)
+        {
+            int target = position + offset;
+
+            // A knight jump never changes file by more than 2, so a larger change means it wrapped around
+            if (target < 0 || target >= BOARD_SIZE || Math.abs(BoardUtils.getFile(target) - col) > 2) continue;
+            if ((excludedSquares & (1L << target)) != 0) continue;
+
+            Piece targetSquarePiece = board.getPiece(target);
+            if (targetSquarePiece == null || targetSquarePiece.getColour() != this.getColour()) count++;
+        }
+
+        return count;
+    }
 }
@@ -69,6 +69,40 @@ public abstract class Piece
         return moves;
     }
 
+    /**
+     * Counts the squares a sliding piece could move to, like {@link #generateSlidingMoves} but without
+     * building the move list.
+     * @param excludedSquares Bitmask of squares (bit {@code i} for square {@code i}) that are not counted.
+     */
+    protected int countSlidingMobility(int position, Chessboard board, int[] directions, long excludedSquares)
+    {
+        int count = 0;
+
+        for (int dir : directions)
+        {
+            int target = position;
+
+            while (true)
+            {
+                int prevCol = BoardUtils.getFile(target);
+                target += dir;
+
+                if (!isOnBoard(target)) break;
+                if (isWrapping(prevCol, BoardUtils.getFile(target), dir)) break;
+
+                Piece targetPiece = board.getPiece(target);
+
+                if (targetPiece == null || targetPiece.getColour() != this.getColour())
+                {
+                    if ((excludedSquares & (1L << target)) == 0) count++;
+                }
+                if (targetPiece != null) break;
+            }
+        }
+
+        return count;
+    }
+
     protected boolean isOnBoard(int pos)
     {
         return ( pos >= 0 && pos < BOARD_SIZE );
@@ -97,6 +131,15 @@ public abstract class Piece
 
     public abstract PieceType getType();
 
+    /**
+     * Counts the pseudo-legal target squares of the piece (empty or enemy-occupied), for the mobility term
+     * of the evaluation. Nothing is allocated and legality is not checked.
+     * Pawns and kings count no mobility, since their number of moves says little about their activity.
+     * @param excludedSquares Bitmask of squares (bit {@code i} for square {@code i}) that are not counted,
+     *                        e.g. squares attacked by enemy pawns.
+     */
+    public int countMobility(int position, Chessboard board, long excludedSquares) { return 0; }
+
     public char toFENSymbol()
     {
         return PieceFactory.toFENSymbol(this);
@@ -20,4 +20,10 @@ public class Queen extends Piece
     {
         return generateSlidingMoves(position, board, QUEEN_DIRECTIONS);
     }
+
+    @Override
+    public int countMobility(int position, Chessboard board, long excludedSquares)
+    {
+        return countSlidingMobility(position, board, QUEEN_DIRECTIONS, excludedSquares);
+    }
 }
@@ -20,4 +20,10 @@ public class Rook extends Piece
     {
         return generateSlidingMoves(position, board, ROOK_DIRECTIONS);
     }
+
+    @Override
+    public int countMobility(int position, Chessboard board, long excludedSquares)
+    {
+        return countSlidingMobility(position, board, ROOK_DIRECTIONS, excludedSquares);
+    }
 }
@@ -0,0 +1,146 @@
+package project.chess.test;
+
+import project.chess.datastructure.LossyHashTable;
+import project.chess.datastructure.RobinHoodHashTable;
+import project.chess.datastructure.StripedHashTable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+/**
+ * Measures the throughput of the shared tables under a cache-like load: several threads doing a mix of
+ * lookups and stores (one store per {@link #STORE_INTERVAL} operations) over a common range of keys.
+ * Compares {@link StripedHashTable}, {@link LossyHashTable}, {@link ConcurrentHashMap} and a
+ * {@link RobinHoodHashTable} behind a single lock.
+ */
+
+public class ConcurrentHashTableBenchmark
+{
+    private static final int STORE_INTERVAL = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param threads Number of threads sharing each table.
+     * @param operationsPerThread Lookups and stores made by each thread.
+     * @param keyRange Keys are drawn from {@code [0, keyRange)}.
+     * @return Throughput in million operations per second, by table name.
+     */
+    public static Map<String, Double> run(int threads, int operationsPerThread, int keyRange)
+    {
+        long[][] keys = new long[threads][operationsPerThread];
+        for (int t = 0; t < threads; t++)
+        {
+            SplittableRandom random = new SplittableRandom(t);
+            for (int i = 0; i < operationsPerThread; i++) keys[t][i] = random.nextInt(keyRange);
+        }
+
+        Map<String, Double> results = new LinkedHashMap<>();
+
+        StripedHashTable<Long, Long> striped = new StripedHashTable<>();
+        results.put("StripedHashTable", measure(threads, operationsPerThread, (t, i) -> {
+            Long key = keys[t][i];
+            if (i % STORE_INTERVAL == 0) striped.put(key, key);
+            else striped.get(key);
+        }));
+
+        LossyHashTable lossy = new LossyHashTable(keyRange);
+        results.put("LossyHashTable", measure(threads, operationsPerThread, (t, i) -> {
+            long key = keys[t][i];
+            if (i % STORE_INTERVAL == 0) lossy.put(key, key);
+            else lossy.get(key, -1);
+        }));
+
+        ConcurrentHashMap<Long, Long> concurrent = new ConcurrentHashMap<>();
+        results.put("ConcurrentHashMap", measure(threads, operationsPerThread, (t, i) -> {
+            Long key = keys[t][i];
+            if (i % STORE_INTERVAL == 0) concurrent.put(key, key);
+            else concurrent.get(key);
+        }));
+
+        RobinHoodHashTable<Long, Long> locked = new RobinHoodHashTable<>();
+        results.put("Single lock", measure(threads, operationsPerThread, (t, i) -> {
+            Long key = keys[t][i];
+            synchronized (locked)
+            {
+                if (i % STORE_INTERVAL == 0) locked.put(key, key);
+                else locked.get(key);
+            }
+        }));
+
+        return results;
+    }
+
+    public static void main(String[] args)
+    {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int operationsPerThread = 2_000_000;
+        int keyRange = 1 << 16;
+        Map<String, Double> results = run(threads, operationsPerThread, keyRange);
+
+        System.out.printf("%d threads, %d operations each, %d keys:%n", threads, operationsPerThread, keyRange);
+        results.forEach((name, throughput) -> System.out.printf("  %-20s %7.2f M ops/s%n", name, throughput));
+    }
+
+    private interface Operation
+    {
+        void apply(int thread, int index);
+    }
+
+    private static double measure(int threads, int operationsPerThread, Operation operation)
+    {
+        // One untimed pass per thread so the JIT has compiled the operation before the clock starts
+        runThreads(threads, t -> {
+            for (int i = 0; i < Math.min(operationsPerThread, 100_000); i++) operation.apply(t, i);
+        });
+
+        long start = System.nanoTime();
+        runThreads(threads, t -> {
+            for (int i = 0; i < operationsPerThread; i++) operation.apply(t, i);
+        });
+        long elapsed = System.nanoTime() - start;
+
+        return (double) threads * operationsPerThread / elapsed * 1_000;
+    }
+
+    private static void runThreads(int threads, IntConsumer body)
+    {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++)
+        {
+            int thread = t;
+            workers[t] = new Thread(() -> {
+                try
+                {
+                    startSignal.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                body.accept(thread);
+            });
+            workers[t].start();
+        }
+
+        startSignal.countDown();
+        for (Thread worker : workers)
+        {
+            try
+            {
+                worker.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package project.chess.test;
+
+import project.chess.datastructure.HashTable;
+import project.chess.datastructure.IntObjectHashTable;
+import project.chess.datastructure.RobinHoodHashTable;
+import project.chess.model.Chessboard;
+import project.chess.model.Game;
+import project.chess.piece.Piece;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the square-to-piece tables on the access pattern of a chessboard during play: every position is
+ * scanned square by square (as move generation does), then the squares changed by the move are deleted and
+ * re-added. The operations are recorded once from random games and replayed on each table.
+ */
+
+public class HashTableBenchmark
+{
+    private static final int LOOKUP = 0;
+    private static final int ADD = 1;
+    private static final int DELETE = 2;
+    private static final int MAX_PLIES = 120;
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Recorded operations, each encoded as {@code operation << 8 | square}, and how many of the lookups
+     * find a piece, which every table must agree on.
+     */
+    private record Trace(int[] operations, int occupiedLookups) {}
+
+    /**
+     * Runs the benchmark.
+     * @param games Number of random games to record.
+     * @param repetitions How many times each table replays them; the fastest replay is reported, which
+     *                    leaves out JIT warm-up.
+     * @param seed Seed for the random games.
+     * @return Average nanoseconds per operation, by table name.
+     */
+    public static Map<String, Double> run(int games, int repetitions, long seed)
+    {
+        Trace trace = recordTrace(games, seed);
+        Object piece = new Object();
+        Map<String, Double> results = new LinkedHashMap<>();
+
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < repetitions; r++) best = Math.min(best, replayHashTable(trace, piece));
+        results.put("HashTable", (double) best / trace.operations().length);
+
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < repetitions; r++) best = Math.min(best, replayRobinHood(trace, piece));
+        results.put("RobinHoodHashTable", (double) best / trace.operations().length);
+
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < repetitions; r++) best = Math.min(best, replayIntObject(trace, piece));
+        results.put("IntObjectHashTable", (double) best / trace.operations().length);
+
+        best = Long.MAX_VALUE;
+        for (int r = 0; r < repetitions; r++) best = Math.min(best, replayHashMap(trace, piece));
+        results.put("java.util.HashMap", (double) best / trace.operations().length);
+
+        return results;
+    }
+
+    public static void main(String[] args)
+    {
+        Map<String, Double> results = run(200, 10, 42);
+        System.out.println("Chessboard access pattern:");
+        results.forEach((name, nanos) -> System.out.printf("  %-20s %6.2f ns/op%n", name, nanos));
+    }
+
+    /**
+     * Records the table operations of random games.
+     */
+    private static Trace recordTrace(int games, long seed)
+    {
+        Random random = new Random(seed);
+        int[] trace = new int[1024];
+        int length = 0;
+        int occupiedLookups = 0;
+
+        for (int g = 0; g < games; g++)
+        {
+            Game game = new Game();
+            game.importFEN(START_FEN);
+            Chessboard board = game.getBoard();
+
+            // Each game starts with the board being set up on an empty table
+            for (int square = 0; square < Chessboard.BOARD_SIZE; square++)
+            {
+                if (board.getPiece(square) != null) trace = append(trace, length++, ADD, square);
+            }
+
+            for (int ply = 0; ply < MAX_PLIES && !game.isGameOver(); ply++)
+            {
+                for (int square = 0; square < Chessboard.BOARD_SIZE; square++)
+                {
+                    trace = append(trace, length++, LOOKUP, square);
+                    if (board.getPiece(square) != null) occupiedLookups++;
+                }
+
+                var moves = board.generateAllLegalMoveBoards(game.getCurrentTurn());
+                if (moves.isEmpty()) break;
+
+                var move = moves.get(random.nextInt(moves.size()));
+                Chessboard next = move.getValue();
+
+                for (int square = 0; square < Chessboard.BOARD_SIZE; square++)
+                {
+                    Piece before = board.getPiece(square);
+                    Piece after = next.getPiece(square);
+                    if (before == null && after == null) continue;
+                    if (before != null && after != null && before.getType() == after.getType() && before.getColour() == after.getColour()) continue;
+
+                    if (before != null) trace = append(trace, length++, DELETE, square);
+                    if (after != null) trace = append(trace, length++, ADD, square);
+                }
+
+                game.makeMove(move);
+                board = game.getBoard();
+            }
+
+            // Clear the table for the next game
+            for (int square = 0; square < Chessboard.BOARD_SIZE; square++)
+            {
+                if (board.getPiece(square) != null) trace = append(trace, length++, DELETE, square);
+            }
+        }
+
+        return new Trace(Arrays.copyOf(trace, length), occupiedLookups);
+    }
+
+    private static int[] append(int[] trace, int index, int operation, int square)
+    {
+        if (index == trace.length) trace = Arrays.copyOf(trace, trace.length * 2);
+        trace[index] = (operation << 8) | square;
+        return trace;
+    }
+
+    private static long replayHashTable(Trace trace, Object piece)
+    {
+        HashTable<Integer, Object> table = new HashTable<>();
+        int found = 0;
+        long start = System.nanoTime();
+
+        for (int entry : trace.operations())
+        {
+            int square = entry & 0xFF;
+            switch (entry >>> 8)
+            {
+                case LOOKUP -> { if (table.contains(square) && table.item(square) != null) found++; }
+                case ADD -> table.add(square, piece);
+                default -> table.delete(square);
+            }
+        }
+
+        return finish(start, found, trace);
+    }
+
+    private static long replayRobinHood(Trace trace, Object piece)
+    {
+        RobinHoodHashTable<Integer, Object> table = new RobinHoodHashTable<>();
+        int found = 0;
+        long start = System.nanoTime();
+
+        for (int entry : trace.operations())
+        {
+            int square = entry & 0xFF;
+            switch (entry >>> 8)
+            {
+                case LOOKUP -> { if (table.contains(square) && table.item(square) != null) found++; }
+                case ADD -> table.add(square, piece);
+                default -> table.delete(square);
+            }
+        }
+
+        return finish(start, found, trace);
+    }
+
+    private static long replayIntObject(Trace trace, Object piece)
+    {
+        IntObjectHashTable<Object> table = new IntObjectHashTable<>();
+        int found = 0;
+        long start = System.nanoTime();
+
+        for (int entry : trace.operations())
+        {
+            int square = entry & 0xFF;
+            switch (entry >>> 8)
+            {
+                case LOOKUP -> { if (table.get(square) != null) found++; }
+                case ADD -> table.put(square, piece);
+                default -> table.remove(square);
+            }
+        }
+
+        return finish(start, found, trace);
+    }
+
+    private static long replayHashMap(Trace trace, Object piece)
+    {
+        Map<Integer, Object> table = new HashMap<>();
+        int found = 0;
+        long start = System.nanoTime();
+
+        for (int entry : trace.operations())
+        {
+            int square = entry & 0xFF;
+            switch (entry >>> 8)
+            {
+                case LOOKUP -> { if (table.get(square) != null) found++; }
+                case ADD -> table.put(square, piece);
+                default -> table.remove(square);
+            }
+        }
+
+        return finish(start, found, trace);
+    }
+
+    private static long finish(long start, int found, Trace trace)
+    {
+        long elapsed = System.nanoTime() - start;
+
+        // Also keeps the JIT from discarding the lookups
+        if (found != trace.occupiedLookups())
+        {
+            throw new IllegalStateException(found + " lookups found a piece, expected " + trace.occupiedLookups());
+        }
+
+        return elapsed;
+    }
+}
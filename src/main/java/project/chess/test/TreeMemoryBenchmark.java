@@ -0,0 +1,55 @@
+package project.chess.test;
+
+import project.chess.datastructure.Tree;
+import project.chess.mcts.MCTSData;
+import project.chess.mcts.MCTSTreeGenerator;
+import project.chess.mcts.MonteCarloTreeSearch;
+import project.chess.model.Game;
+
+/**
+ * Measures the heap taken by one search tree node, which {@link MonteCarloTreeSearch#setMemoryLimit} turns into
+ * a node cap. A tree is grown by a number of simulations and the used heap, after a full collection, is compared
+ * with the heap used before the search. The fixed-size tables (transposition table, evaluation cache) are
+ * allocated before the first measurement, so only the nodes, their games and their table entries are counted.
+ */
+
+public class TreeMemoryBenchmark
+{
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    /**
+     * Grows a tree and measures it.
+     * @param simulations Number of simulations, each adding at most one node.
+     * @return The retained heap per node, in bytes.
+     */
+    public static long run(int simulations)
+    {
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        Game game = new Game();
+        game.importFEN(KIWIPETE);
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+
+        long before = usedHeap();
+        mcts.runSimulations(tree, simulations);
+        long after = usedHeap();
+
+        // Keeps the tree reachable until after the second measurement
+        return (after - before) / Math.max(1, tree.size());
+    }
+
+    public static void main(String[] args)
+    {
+        run(2_000);
+        for (int simulations : new int[] { 5_000, 20_000 })
+        {
+            System.out.printf("%d simulations: %d bytes per node%n", simulations, run(simulations));
+        }
+    }
+
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,446 @@
+package project.chess;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import project.chess.datastructure.DynamicArray;
+import project.chess.datastructure.HashTable;
+import project.chess.datastructure.IntDynamicArray;
+import project.chess.datastructure.IntObjectHashTable;
+import project.chess.datastructure.LinkedList;
+import project.chess.datastructure.LongLongHashTable;
+import project.chess.datastructure.LossyHashTable;
+import project.chess.datastructure.PersistentIntStack;
+import project.chess.datastructure.RobinHoodHashTable;
+import project.chess.datastructure.StripedHashTable;
+import project.chess.datastructure.Tree;
+import project.chess.datastructure.TreeNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class DataStructureTests {
+
+    @Test
+    void test1IntObjectHashTable() {
+        IntObjectHashTable<String> table = new IntObjectHashTable<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(41);
+
+        // Random operations on a small key range, so probe runs collide and deletions shift entries back
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(512) - 256;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), table.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), table.put(key, value));
+            }
+            assertEquals(expected.size(), table.length());
+        }
+
+        for (int key = -256; key < 256; key++) {
+            assertEquals(expected.get(key), table.get(key));
+            assertEquals(expected.containsKey(key), table.contains(key));
+        }
+
+        int iterated = 0;
+        for (Integer key : table.keys()) {
+            assertTrue(expected.containsKey(key));
+            iterated++;
+        }
+        assertEquals(expected.size(), iterated);
+        assertEquals(expected.keySet(), new HashSet<>(nextWithoutHasNext(table.keys().iterator(), table.length())));
+
+        // IHashTable semantics match HashTable: missing keys and duplicate adds throw
+        int missing = 1000;
+        assertThrows(IllegalArgumentException.class, () -> table.item(missing));
+        assertThrows(IllegalArgumentException.class, () -> table.delete(missing));
+        table.add(missing, "x");
+        assertThrows(IllegalArgumentException.class, () -> table.add(missing, "y"));
+        assertThrows(NullPointerException.class, () -> table.put(1, null));
+
+        int capacity = table.capacity();
+        table.clear();
+        assertTrue(table.isEmpty());
+        assertEquals(capacity, table.capacity());
+        System.out.println("IntObjectHashTable capacity after random operations: " + capacity);
+    }
+
+    @Test
+    void test2LongLongHashTable() {
+        LongLongHashTable table = new LongLongHashTable();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        long[] keys = new long[1000];
+        for (int i = 0; i < keys.length; i++) keys[i] = random.nextLong();
+        keys[0] = 0;
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = keys[random.nextInt(keys.length)];
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.remove(key) != null, table.remove(key));
+                case 1 -> assertEquals(expected.merge(key, 1L, Long::sum), table.addTo(key, 1));
+                default -> assertEquals(expected.put(key, (long) i) == null, table.put(key, i));
+            }
+        }
+
+        assertEquals(expected.size(), table.length());
+        for (long key : keys) {
+            assertEquals(expected.getOrDefault(key, -1L), table.get(key, -1));
+        }
+        assertEquals(expected.keySet(), new HashSet<>(nextWithoutHasNext(table.keys().iterator(), table.length())));
+    }
+
+    @Test
+    void test3RobinHoodHashTable() {
+        RobinHoodHashTable<Long, Integer> table = new RobinHoodHashTable<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(43);
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2000);
+            if (expected.containsKey(key)) {
+                assertEquals(expected.get(key), table.item(key));
+                if (random.nextBoolean()) {
+                    expected.remove(key);
+                    table.delete(key);
+                } else {
+                    assertThrows(IllegalArgumentException.class, () -> table.add(key, 0));
+                }
+            } else {
+                assertFalse(table.contains(key));
+                expected.put(key, i);
+                table.add(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), table.length());
+        for (Long key : table.keys()) assertEquals(expected.get(key), table.item(key));
+        System.out.println("Robin Hood table: " + table.length() + " entries, capacity " + table.capacity()
+                + ", longest probe " + table.maxProbeLength());
+
+        // Shrinks once mostly empty, with no tombstones left behind
+        for (Long key : expected.keySet()) table.delete(key);
+        assertTrue(table.isEmpty());
+        assertEquals(16, table.capacity());
+    }
+
+    @Test
+    void test4HashTableRejectsDuplicateAfterDeletion() {
+        // Keys 0, 11 and 22 share a chain, so deleting 0 leaves a tombstone in front of 11
+        HashTable<Integer, String> table = new HashTable<>();
+        table.setCustomHash(key -> key);
+        table.add(0, "a");
+        table.add(11, "b");
+        table.delete(0);
+
+        assertThrows(IllegalArgumentException.class, () -> table.add(11, "c"));
+        assertEquals("b", table.item(11));
+
+        // Keys outside the Integer cache are different objects, so they must be compared with equals
+        table.add(1000, "d");
+        assertTrue(table.contains(Integer.valueOf(1000)));
+    }
+
+    @Test
+    void test5RobinHoodHashTableIterator() {
+        // Deleting every other key leaves empty slots between the entries, which next() has to step over
+        RobinHoodHashTable<Long, Integer> table = new RobinHoodHashTable<>();
+        for (long key = 0; key < 100; key++) table.add(key * 7919, (int) key);
+        for (long key = 0; key < 100; key += 2) table.delete(key * 7919);
+
+        List<Long> keys = nextWithoutHasNext(table.keys().iterator(), table.length());
+        assertEquals(50, new HashSet<>(keys).size());
+        for (Long key : keys) assertEquals(1, key / 7919 % 2);
+
+        assertThrows(NoSuchElementException.class, () -> new RobinHoodHashTable<Long, Integer>().keys().iterator().next());
+    }
+
+    @Test
+    void test6StripedHashTableStress() throws Exception {
+        StripedHashTable<Integer, Integer> table = new StripedHashTable<>(8);
+        int threadCount = 8;
+        int keysPerThread = 20_000;
+        AtomicInteger errors = new AtomicInteger();
+
+        // Each thread adds, updates and removes its own keys, and all of them race on a shared counter key
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            int offset = t * keysPerThread;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < keysPerThread; i++) {
+                    table.add(offset + i, i);
+                    table.computeIfAbsent(-1, key -> 0);
+                }
+                for (int i = 0; i < keysPerThread; i++) {
+                    if (table.put(offset + i, -i) != i) errors.incrementAndGet();
+                    if (i % 2 == 0 && table.remove(offset + i) != -i) errors.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(0, errors.get());
+        assertEquals(threadCount * keysPerThread / 2 + 1, table.length());
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 1; i < keysPerThread; i += 2) assertEquals(-i, table.item(t * keysPerThread + i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> table.add(-1, 1));
+    }
+
+    @Test
+    void test7LossyHashTableStress() throws Exception {
+        // A small table, so threads constantly overwrite each other's slots
+        LossyHashTable table = new LossyHashTable(1 << 8);
+        AtomicInteger hits = new AtomicInteger();
+        AtomicInteger wrong = new AtomicInteger();
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 500_000; i++) {
+                    long key = random.nextInt(4096) + 1;
+                    if (random.nextBoolean()) {
+                        table.put(key, key * 31);
+                    } else {
+                        long value = table.get(key, -1);
+                        if (value != -1) {
+                            hits.incrementAndGet();
+                            if (value != key * 31) wrong.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        // Entries may be lost, but a hit must never return another key's data
+        System.out.println("Lossy table hits under contention: " + hits.get());
+        assertEquals(0, wrong.get());
+        assertTrue(hits.get() > 0);
+    }
+
+    @Test
+    void test8ConcurrentHashTableContracts() {
+        StripedHashTable<Integer, String> striped = new StripedHashTable<>(3);
+        assertEquals(4, striped.getStripeCount());
+        assertNull(striped.put(1, "a"));
+        assertEquals("a", striped.put(1, "b"));
+        assertEquals("b", striped.putIfAbsent(1, "c"));
+        assertNull(striped.putIfAbsent(2, "d"));
+        assertEquals("d", striped.computeIfAbsent(2, key -> "e"));
+        assertEquals("b", striped.remove(1));
+        assertNull(striped.remove(1));
+        assertEquals(List.of(2), striped.keys());
+
+        // Three slots round up to four; keys sharing a slot replace each other
+        LossyHashTable lossy = new LossyHashTable(3);
+        assertEquals(4, lossy.capacity());
+        lossy.put(5, 50);
+        assertEquals(50, lossy.get(5, -1));
+        long other = 6;
+        while (lossy.hash(other) != lossy.hash(5)) other++;
+        lossy.put(other, 60);
+        assertEquals(-1, lossy.get(5, -1));
+        assertEquals(60, lossy.get(other, -1));
+        lossy.clear();
+        assertEquals(-1, lossy.get(other, -1));
+        assertThrows(IllegalArgumentException.class, () -> new LossyHashTable(0));
+    }
+
+    @Test
+    void test9DynamicArray() {
+        DynamicArray<Integer> array = new DynamicArray<>(0);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(44);
+
+        for (int i = 0; i < 10_000; i++) {
+            switch (random.nextInt(4)) {
+                case 0 -> { array.append(i); expected.add(i); }
+                case 1 -> {
+                    int index = random.nextInt(expected.size() + 1);
+                    array.insert(i, index);
+                    expected.add(index, i);
+                }
+                case 2 -> { if (!expected.isEmpty()) assertEquals(expected.remove(expected.size() - 1), array.removeLast()); }
+                default -> {
+                    if (!expected.isEmpty()) {
+                        int index = random.nextInt(expected.size());
+                        assertEquals(expected.remove(index), array.pop(index));
+                    }
+                }
+            }
+        }
+
+        assertEquals(expected.size(), array.size());
+        int i = 0;
+        for (Integer value : array) assertEquals(expected.get(i++), value);
+        assertThrows(IndexOutOfBoundsException.class, () -> array.get(expected.size()));
+
+        IntDynamicArray ints = new IntDynamicArray(1);
+        for (int value = 0; value < 100; value++) ints.append(value * 3);
+        assertEquals(297, ints.peekLast());
+        assertEquals(33, ints.indexOf(99));
+        assertEquals(297, ints.removeLast());
+        assertEquals(99, ints.toArray().length);
+    }
+
+    @Test
+    void test10LinkedListInsert() {
+        LinkedList<String> list = new LinkedList<>();
+        list.insert("c", 0);
+        list.insert("a", 0);
+        list.insert("b", 1);
+        list.insert("e", 3);
+
+        // Inserting at size - 1 goes before the last element, not after it
+        list.insert("d", 3);
+
+        assertArrayEquals(new Object[] { "a", "b", "c", "d", "e" }, list.asArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.insert("f", 6));
+    }
+
+    @Test
+    void test11IterativeTreeTraversals() {
+        // A random tree, checked against recursive reference traversals
+        Tree<Integer> tree = new Tree<>();
+        tree.setRoot(0);
+        List<TreeNode<Integer>> nodes = new ArrayList<>(List.of(tree.getRoot()));
+        Random random = new Random(46);
+        for (int i = 1; i < 5000; i++) nodes.add(tree.addChild(nodes.get(random.nextInt(nodes.size())), i));
+
+        List<Integer> pre = new ArrayList<>();
+        List<Integer> post = new ArrayList<>();
+        collect(tree.getRoot(), pre, post);
+
+        List<Integer> iterated = new ArrayList<>();
+        for (TreeNode<Integer> node : tree.preOrder()) iterated.add(node.getValue());
+        assertEquals(pre, iterated);
+
+        iterated.clear();
+        for (TreeNode<Integer> node : tree.postOrder()) iterated.add(node.getValue());
+        assertEquals(post, iterated);
+
+        iterated.clear();
+        int lastDepth = 0;
+        for (TreeNode<Integer> node : tree.levelOrder()) {
+            int depth = depth(node);
+            assertTrue(depth >= lastDepth);
+            lastDepth = depth;
+            iterated.add(node.getValue());
+        }
+        assertEquals(5000, iterated.size());
+        // asArray returns an Object[] behind its generic type, so it is read through a wildcard
+        assertArrayEquals(pre.toArray(), ((Tree<?>) tree).asArray());
+
+        // A line far deeper than the call stack allows for recursion
+        Tree<Integer> deep = new Tree<>();
+        deep.setRoot(0);
+        TreeNode<Integer> node = deep.getRoot();
+        for (int i = 1; i < 200_000; i++) node = deep.addChild(node, i);
+
+        int count = 0;
+        for (TreeNode<Integer> ignored : deep.postOrder()) count++;
+        assertEquals(200_000, count);
+        assertEquals(199_999, ((Tree<?>) deep).asArray()[199_999]);
+
+        // Depth histogram and sums match a sequential walk
+        long[] histogram = deep.parallelReduce(() -> new long[200_000], (h, n, depth) -> h[depth]++,
+                (a, b) -> { for (int i = 0; i < a.length; i++) a[i] += b[i]; return a; });
+        for (long level : histogram) assertEquals(1, level);
+
+        assertEquals(5000, tree.parallelSum(n -> 1));
+        assertEquals(4999L * 5000 / 2, tree.parallelSum(TreeNode::getValue));
+        System.out.println("Parallel node count of a 200000-deep line: " + deep.parallelSum(n -> 1));
+    }
+
+    @Test
+    void test12TreeStructureDisplay() {
+        Tree<String> tree = new Tree<>();
+        tree.setRoot("root");
+        TreeNode<String> a = tree.addChild(tree.getRoot(), "a");
+        tree.addChild(a, "a1");
+        tree.addChild(a, "a2");
+        tree.addChild(tree.getRoot(), "b");
+
+        PrintStream original = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true));
+        try {
+            tree.displayTreeStructure(true);
+        } finally {
+            System.setOut(original);
+        }
+
+        String expected = String.join(System.lineSeparator(),
+                "└── root",
+                "    ├── a",
+                "    │   ├── a1",
+                "    │   │   └── null",
+                "    │   └── a2",
+                "    │       └── null",
+                "    └── b",
+                "        └── null") + System.lineSeparator();
+        assertEquals(expected, output.toString());
+    }
+
+    private void collect(TreeNode<Integer> node, List<Integer> pre, List<Integer> post) {
+        pre.add(node.getValue());
+        for (TreeNode<Integer> child : node.getChildren()) collect(child, pre, post);
+        post.add(node.getValue());
+    }
+
+    private int depth(TreeNode<Integer> node) {
+        int depth = 0;
+        for (TreeNode<Integer> current = node.getParent(); current != null; current = current.getParent()) depth++;
+        return depth;
+    }
+
+    @Test
+    void test13PersistentIntStack() {
+        PersistentIntStack empty = PersistentIntStack.empty();
+        PersistentIntStack shared = empty.push(1).push(2);
+
+        // Both branches share the first two values, and pushing onto one leaves the other unchanged
+        PersistentIntStack left = shared.push(3);
+        PersistentIntStack right = shared.push(4).push(5);
+
+        assertArrayEquals(new int[] { 1, 2 }, shared.toArray());
+        assertArrayEquals(new int[] { 1, 2, 3 }, left.toArray());
+        assertArrayEquals(new int[] { 1, 2, 4, 5 }, right.toArray());
+        assertSame(shared, left.pop());
+        assertEquals(5, right.peek());
+        assertEquals(4, right.size());
+
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.toArray().length);
+        assertThrows(IllegalStateException.class, empty::peek);
+        assertThrows(IllegalStateException.class, empty::pop);
+    }
+
+    /**
+     * Walks an iterator with next() alone, which has to skip empty slots itself and throw once past the end.
+     */
+    private static <T> List<T> nextWithoutHasNext(Iterator<T> iterator, int count) {
+        List<T> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) values.add(iterator.next());
+        assertThrows(NoSuchElementException.class, iterator::next);
+        return values;
+    }
+}
@@ -0,0 +1,259 @@
+package project.chess;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import project.chess.datastructure.Pair;
+import project.chess.datastructure.Tree;
+import project.chess.mcts.MCTSData;
+import project.chess.mcts.MCTSTreeGenerator;
+import project.chess.model.BoardUtils;
+import project.chess.model.Chessboard;
+import project.chess.model.Game;
+import project.chess.model.GameResult;
+import project.chess.model.Move;
+import project.chess.model.MoveParser;
+import project.chess.piece.Piece;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class GameTests
+{
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private Game gameFromFEN(String fen)
+    {
+        Game game = new Game();
+        game.importFEN(fen);
+        return game;
+    }
+
+    @Test
+    void testMoveHistoryIsSharedBetweenCopies()
+    {
+        System.out.println("TEST: Move history");
+        Game game = gameFromFEN(KIWIPETE);
+        List<String> played = new ArrayList<>();
+        Random random = new Random(48);
+
+        // Board pairs and move codes both go into the history, including castling, en passant and promotions
+        for (int ply = 0; ply < 150 && !game.isGameOver(); ply++)
+        {
+            if (ply % 2 == 0)
+            {
+                List<Pair<String, Chessboard>> moves = game.getBoard().generateAllLegalMoveBoards(game.getCurrentTurn());
+                Pair<String, Chessboard> move = moves.get(random.nextInt(moves.size()));
+                game.makeMove(move);
+                played.add(move.getKey());
+            }
+            else
+            {
+                int[] moves = game.getBoard().generateAllPseudolegalMoves(game.getCurrentTurn());
+                int move;
+                do move = moves[random.nextInt(moves.length)]; while (!game.getBoard().isLegalMove(move));
+
+                played.add(game.getBoard().toSAN(move));
+                game.makeMove(move);
+                assertEquals(move, game.getLastMove());
+            }
+
+            assertEquals(played.getLast(), game.getLastMoveSAN());
+        }
+
+        System.out.printf("Plies: %d | Last move: %s%n", game.getPly(), game.getLastMoveSAN());
+        assertEquals(played, game.getMoveHistory());
+        assertEquals(played.size(), game.getMoveCodes().length);
+
+        // A copy continues on its own without touching the original's history
+        Game copy = new Game(game);
+        if (!copy.isGameOver())
+        {
+            copy.makeMove(copy.getBoard().generateAllLegalMoveBoards(copy.getCurrentTurn()).getFirst());
+            assertEquals(played.size() + 1, copy.getPly());
+        }
+        assertEquals(played.size(), game.getPly());
+        assertEquals(played, game.getMoveHistory());
+
+        // A board that no move of the side to move reaches is rejected without touching the game
+        if (!game.isGameOver())
+        {
+            String fen = game.getFEN();
+            Pair<String, Chessboard> bogus = new Pair<>("Ke2", new Chessboard(game.getBoard()));
+            assertThrows(IllegalArgumentException.class, () -> game.makeMove(bogus));
+            assertEquals(fen, game.getFEN());
+            assertEquals(played, game.getMoveHistory());
+        }
+
+        // Importing a position starts a new history
+        game.importFEN(KIWIPETE);
+        assertTrue(game.getMoveHistory().isEmpty());
+        assertNull(game.getLastMoveSAN());
+        assertEquals(Move.NONE, game.getLastMove());
+    }
+
+    @Test
+    void testUndoRedoRestoresEveryPosition()
+    {
+        System.out.println("TEST: Undo and redo");
+
+        // En passant, a capturing promotion and castling, each taken back
+        Game special = gameFromFEN("r3k2r/1P6/8/8/3pP3/8/8/R3K2R b KQkq e3 0 1");
+        String before = special.getFEN();
+        for (String san : new String[] { "dxe3", "O-O-O", "O-O", "bxa8=Q" })
+        {
+            assertTrue(special.makeValidMove(san), san);
+        }
+        String after = special.getFEN();
+
+        special.goToPly(0);
+        assertEquals(before, special.getFEN());
+        assertFalse(special.canUndo());
+        special.goToPly(4);
+        assertEquals(after, special.getFEN());
+        assertEquals("bxa8=Q", special.getLastMoveSAN());
+
+        // A long random game, stepped all the way back and forth again
+        Game game = gameFromFEN(KIWIPETE);
+        List<String> positions = new ArrayList<>(List.of(game.getFEN()));
+        Random random = new Random(49);
+
+        for (int ply = 0; ply < 120 && !game.isGameOver(); ply++)
+        {
+            List<Pair<String, Chessboard>> moves = game.getBoard().generateAllLegalMoveBoards(game.getCurrentTurn());
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+            positions.add(game.getFEN());
+        }
+
+        GameResult result = game.getResult();
+        int plies = game.getPly();
+        List<String> history = game.getMoveHistory();
+
+        for (int ply = plies - 1; ply >= 0; ply--)
+        {
+            assertTrue(game.undo());
+            assertEquals(positions.get(ply), game.getFEN());
+            assertEquals(GameResult.ONGOING, game.getResult());
+        }
+        assertFalse(game.undo());
+        assertNull(game.getLastMoveSAN());
+
+        game.goToPly(plies);
+        assertEquals(positions.getLast(), game.getFEN());
+        assertEquals(result, game.getResult());
+        assertEquals(history, game.getMoveHistory());
+        assertThrows(IllegalArgumentException.class, () -> game.goToPly(plies + 1));
+        System.out.printf("Stepped through %d plies | Result: %s%n", plies, result);
+
+        // A copy shares the records, and a new move discards the moves left to redo
+        game.goToPly(plies / 2);
+        Game copy = new Game(game);
+        assertTrue(copy.redo());
+        assertEquals(positions.get(plies / 2 + 1), copy.getFEN());
+
+        game.makeMove(game.getBoard().generateAllLegalMoveBoards(game.getCurrentTurn()).getFirst());
+        assertFalse(game.canRedo());
+        assertTrue(game.undo());
+        assertEquals(positions.get(plies / 2), game.getFEN());
+    }
+
+    @Test
+    void testUndoLeavesSharedBoardsAlone()
+    {
+        System.out.println("TEST: Undo with shared boards");
+        Game game = gameFromFEN(KIWIPETE);
+        String start = game.getFEN();
+
+        // The board of a move pair is still held by the caller (and by its list of sibling moves)
+        Pair<String, Chessboard> move = game.getBoard().generateAllLegalMoveBoards(game.getCurrentTurn()).getFirst();
+        String afterMove = move.getValue().toBasicFEN();
+        game.makeMove(move);
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+
+        assertTrue(game.undo());
+        assertEquals(start, game.getFEN());
+        assertEquals(afterMove, move.getValue().toBasicFEN());
+        assertEquals(afterMove, tree.getRoot().getValue().getState().getBoard().toBasicFEN());
+
+        // So is a board handed out by getBoard
+        Chessboard held = game.getBoard();
+        assertTrue(game.redo());
+        assertNotSame(held, game.getBoard());
+        assertEquals(start.split(" ")[0], held.toBasicFEN());
+
+        Chessboard current = game.getBoard();
+        game.goToPly(0);
+        assertTrue(game.redo());
+        assertNotSame(current, game.getBoard());
+        assertEquals(afterMove, current.toBasicFEN());
+        assertEquals(afterMove, game.getBoard().toBasicFEN());
+    }
+
+    @Test
+    void testMoveParserMatchesGeneratedMoves()
+    {
+        System.out.println("TEST: Move parser");
+        Game game = gameFromFEN(KIWIPETE);
+        Random random = new Random(50);
+        int parsed = 0;
+
+        // Every legal move parses from its SAN and UCI to the same position the move generator gives
+        for (int ply = 0; ply < 80 && !game.isGameOver(); ply++)
+        {
+            Chessboard board = game.getBoard();
+            Piece.Colour colour = game.getCurrentTurn();
+            List<Pair<String, Chessboard>> moves = board.generateAllLegalMoveBoards(colour);
+
+            for (Pair<String, Chessboard> move : moves)
+            {
+                int fromSAN = MoveParser.parse(board, colour, move.getKey());
+                assertEquals(move.getValue().toBasicFEN(), board.copyWithMove(fromSAN).toBasicFEN(), move.getKey());
+                assertEquals(fromSAN, MoveParser.parse(board, colour, Move.toUCI(fromSAN)));
+                parsed++;
+            }
+
+            assertTrue(game.makeValidMove(moves.get(random.nextInt(moves.size())).getKey()));
+        }
+        System.out.println("Moves parsed: " + parsed);
+
+        // Failures name what is wrong with the move
+        Game start = gameFromFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        assertTrue(start.makeValidMove("e2e4"));
+        assertTrue(start.makeValidMove("e5"));
+        assertTrue(start.makeValidMove("Nf3!"));
+        assertEquals("Nf3", start.getLastMoveSAN());
+        assertFalse(start.makeValidMove("Ke2"));
+
+        assertParseError(start, "Qh5", "no black queen can move to h5");
+        assertParseError(start, "e2e4", "there is no piece on e2");
+        assertParseError(start, "f3e5", "the piece on f3 is not black");
+        assertParseError(start, "Nz9", "Invalid SAN move");
+        assertParseError(start, "O-O", "cannot castle kingside");
+        assertParseError(start, "exf4", "no black pawn can move to f4");
+
+        // Two knights can reach f3, but a pinned one does not make the move ambiguous
+        Game knights = gameFromFEN("4k3/8/8/8/8/8/3N4/4K1N1 w - - 0 1");
+        assertParseError(knights, "Nf3", "ambiguous move, knights on g1 and d2");
+        assertEquals(Move.encode(BoardUtils.toIndex("d2"), BoardUtils.toIndex("f3")), MoveParser.parse(knights.getBoard(), Piece.Colour.WHITE, "Ndf3"));
+
+        Game pinned = gameFromFEN("4k3/8/8/8/1b6/8/3N4/4K1N1 w - - 0 1");
+        assertEquals(Move.encode(BoardUtils.toIndex("g1"), BoardUtils.toIndex("f3")), MoveParser.parse(pinned.getBoard(), Piece.Colour.WHITE, "Nf3"));
+        assertParseError(pinned, "Nb3", "illegal move, it would leave the white king in check");
+        assertParseError(pinned, "Nxe2", "not a capture");
+
+        Game promotion = gameFromFEN("4k3/P7/8/8/8/8/8/4K3 w - - 0 1");
+        assertParseError(promotion, "a8", "must name its promotion piece");
+        assertParseError(promotion, "a7a8k", "Invalid SAN move");
+        assertTrue(promotion.makeValidMove("a7a8n"));
+        assertEquals("a8=N", promotion.getLastMoveSAN());
+    }
+
+    private void assertParseError(Game game, String move, String reason)
+    {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> game.makeMove(move));
+        assertTrue(e.getMessage().contains(reason), e.getMessage());
+    }
+}
@@ -3,11 +3,21 @@ package project.chess;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import project.chess.model.Game;
+import project.chess.datastructure.DynamicArray;
 import project.chess.datastructure.LinkedList;
+import project.chess.datastructure.TopKHeap;
 import project.chess.datastructure.Tree;
 import project.chess.datastructure.TreeNode;
 import project.chess.mcts.MCTSData;
 import project.chess.mcts.MonteCarloTreeSearch;
+import project.chess.mcts.MoveStatistics;
+import project.chess.mcts.RankingCriterion;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 public class MCTSMoveRankingTests {
@@ -33,7 +43,7 @@ public class MCTSMoveRankingTests {
             Game childGame = new Game(game);
             childGame.makeMove(movePair);
             MCTSData childData = new MCTSData(childGame, movePair.getKey(), childGame.getCurrentTurn());
-            rootNode.addChild(new TreeNode<>(childData));
+            tree.addChild(rootNode, childData);
         }
 
         return tree;
@@ -125,4 +135,41 @@ public class MCTSMoveRankingTests {
         runMCTSWithMemoryUsage(tree, 500);
     }
 
+    @Test
+    void testTopMoves() {
+        System.out.println("TEST: Top Moves");
+
+        // The heap keeps exactly the k largest values, best first
+        TopKHeap<Integer> heap = new TopKHeap<>(5, Comparator.naturalOrder());
+        Random random = new Random(45);
+        int[] values = random.ints(1000, 0, 100_000).toArray();
+        for (int value : values) heap.offer(value);
+        int[] expected = Arrays.stream(values).boxed().sorted(Comparator.reverseOrder()).limit(5).mapToInt(Integer::intValue).toArray();
+        DynamicArray<Integer> top = heap.toSortedArray();
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], top.get(i));
+
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Tree<MCTSData> tree = buildTreeFromFEN(fen);
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        mcts.runSimulations(tree, 500);
+
+        DynamicArray<MoveStatistics> byVisits = mcts.getTopMoves(tree, 5, RankingCriterion.VISITS);
+        System.out.println("Top 5 moves by visits:");
+        for (MoveStatistics move : byVisits) System.out.println("  " + move);
+
+        assertEquals(5, byVisits.size());
+        for (int i = 1; i < byVisits.size(); i++) {
+            assertTrue(byVisits.get(i - 1).getVisits() >= byVisits.get(i).getVisits());
+        }
+        int mostVisits = 0;
+        for (TreeNode<MCTSData> child : tree.getRoot().getChildren()) mostVisits = Math.max(mostVisits, child.getValue().getVisits());
+        assertEquals(mostVisits, byVisits.get(0).getVisits());
+
+        // The win-rate ranking agrees with the full ranked move list
+        DynamicArray<MoveStatistics> byWinRate = mcts.getTopMoves(tree, 5, RankingCriterion.WIN_RATE);
+        LinkedList<String> ranked = mcts.getRankedMoves(tree);
+        for (int i = 0; i < byWinRate.size(); i++) assertEquals(ranked.get(i), byWinRate.get(i).getMove());
+
+        assertThrows(IllegalArgumentException.class, () -> mcts.getTopMoves(tree, 0, RankingCriterion.VISITS));
+    }
 }
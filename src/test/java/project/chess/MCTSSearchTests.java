@@ -0,0 +1,379 @@
+package project.chess;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import project.chess.datastructure.Tree;
+import project.chess.datastructure.TreeNode;
+import project.chess.mcts.CancellationToken;
+import project.chess.mcts.MCTSData;
+import project.chess.mcts.MCTSTreeGenerator;
+import project.chess.mcts.MonteCarloTreeSearch;
+import project.chess.mcts.ProvenResult;
+import project.chess.mcts.SearchLimits;
+import project.chess.mcts.SearchTask;
+import project.chess.mcts.SelectionPolicy;
+import project.chess.mcts.TranspositionTable;
+import project.chess.model.Game;
+import project.chess.piece.Piece;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class MCTSSearchTests
+{
+    private Game gameFromFEN(String fen)
+    {
+        Game game = new Game();
+        game.importFEN(fen);
+        return game;
+    }
+
+    private int countNodes(TreeNode<MCTSData> node)
+    {
+        int count = 1;
+        for (TreeNode<MCTSData> child : node.getChildren().asIterable())
+        {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    @Test
+    void testLazyExpansionCreatesOneNodePerSimulation()
+    {
+        System.out.println("TEST: Lazy expansion");
+        Game game = gameFromFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+
+        // A fresh tree only holds the root
+        assertTrue(tree.getRoot().getChildren().isEmpty());
+
+        int simulations = 30;
+        new MonteCarloTreeSearch().runSimulations(tree, simulations);
+
+        int nodeCount = countNodes(tree.getRoot());
+        System.out.printf("Simulations: %d | Nodes: %d%n", simulations, nodeCount);
+
+        assertEquals(simulations, tree.getRoot().getValue().getVisits());
+        assertTrue(nodeCount <= simulations + 1, "At most one node should be expanded per simulation");
+        assertTrue(tree.getRoot().getChildren().size() <= 20);
+    }
+
+    @Test
+    void testPrebuiltChildrenAreNotDuplicated()
+    {
+        System.out.println("TEST: Pre-built children are kept");
+        Game game = gameFromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game, 1);
+        int legalMoves = tree.getRoot().getChildren().size();
+
+        new MonteCarloTreeSearch().runSimulations(tree, 40);
+
+        TreeNode<MCTSData> root = tree.getRoot();
+        assertEquals(legalMoves, root.getChildren().size());
+        for (TreeNode<MCTSData> child : root.getChildren().asIterable())
+        {
+            assertTrue(child.getValue().getVisits() > 0);
+        }
+    }
+
+    @Test
+    void testPrebuiltTreeIsCountedAndPruned()
+    {
+        System.out.println("TEST: Pre-built tree size");
+        Game game = gameFromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game, 2);
+        System.out.println("Pre-built nodes: " + tree.size());
+        assertEquals(countNodes(tree.getRoot()), tree.size());
+        assertTrue(tree.size() > 1000);
+
+        // Pruning the pre-built nodes keeps the count exact, so the cap holds
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        mcts.setMaxTreeNodes(500);
+        mcts.runSimulations(tree, 100);
+
+        assertEquals(countNodes(tree.getRoot()), tree.size());
+        assertTrue(tree.size() <= 500);
+    }
+
+    @Test
+    void testAdvanceRootKeepsSubtreeStatistics()
+    {
+        System.out.println("TEST: Subtree reuse");
+        Game game = gameFromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+
+        mcts.runSimulations(tree, 60);
+
+        // Play the most visited move and check its statistics carry over
+        TreeNode<MCTSData> played = tree.getRoot().getChildren().get(0);
+        for (TreeNode<MCTSData> child : tree.getRoot().getChildren().asIterable())
+        {
+            if (child.getValue().getVisits() > played.getValue().getVisits()) played = child;
+        }
+        int visitsBefore = played.getValue().getVisits();
+        int subtreeSize = countNodes(played);
+
+        mcts.advanceRoot(tree, played.getValue().getMove());
+
+        assertSame(played, tree.getRoot());
+        assertNull(tree.getRoot().getParent());
+        assertEquals(visitsBefore, tree.getRoot().getValue().getVisits());
+        assertEquals(subtreeSize, countNodes(tree.getRoot()));
+
+        // Any legal reply can be played, even if it was never expanded
+        Game afterMove = tree.getRoot().getValue().getState();
+        String reply = afterMove.getBoard().generateAllLegalMoveSAN(afterMove.getCurrentTurn()).getLast();
+        mcts.advanceRoot(tree, reply);
+
+        assertEquals(reply, tree.getRoot().getValue().getMove());
+        assertEquals(Piece.Colour.WHITE, tree.getRoot().getValue().getPlayerToMove());
+
+        mcts.runSimulations(tree, 20);
+        assertThrows(IllegalArgumentException.class, () -> mcts.advanceRoot(tree, "Qh8"));
+    }
+
+    @Test
+    void testNodeAndTimeLimitedSearch()
+    {
+        System.out.println("TEST: Budgeted search");
+        Game game = gameFromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+
+        Tree<MCTSData> nodeTree = MCTSTreeGenerator.generateTree(game);
+        String nodeLimitedMove = mcts.search(nodeTree, SearchLimits.nodes(10), new CancellationToken());
+        assertNotNull(nodeLimitedMove);
+        assertEquals(11, countNodes(nodeTree.getRoot()));
+
+        Tree<MCTSData> timeTree = MCTSTreeGenerator.generateTree(game);
+        long start = System.currentTimeMillis();
+        String timeLimitedMove = mcts.search(timeTree, SearchLimits.time(300), new CancellationToken());
+        long elapsed = System.currentTimeMillis() - start;
+        System.out.printf("Time-limited move: %s in %d ms (%d simulations)%n",
+                timeLimitedMove, elapsed, timeTree.getRoot().getValue().getVisits());
+
+        assertNotNull(timeLimitedMove);
+        assertEquals(timeLimitedMove, mcts.getBestMoveSoFar());
+        assertTrue(elapsed < 2000, "Search should stop close to its deadline");
+    }
+
+    @Test
+    void testCancellationReturnsBestMoveSoFar() throws Exception
+    {
+        System.out.println("TEST: Cancellation");
+        Game game = gameFromFEN("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        CancellationToken token = new CancellationToken();
+
+        Future<String> future = mcts.searchAsync(tree, SearchLimits.unlimited(), token);
+        Thread.sleep(300);
+        token.cancel();
+
+        String move = future.get(5, TimeUnit.SECONDS);
+        assertNotNull(move);
+        assertEquals(move, mcts.getBestMoveSoFar());
+
+        // Cancelling the future interrupts the search thread instead
+        SearchTask interrupted = mcts.searchAsync(tree, SearchLimits.unlimited(), new CancellationToken());
+        Thread.sleep(100);
+
+        // The instance runs one search at a time, and each task keeps the best move of its own search
+        Tree<MCTSData> otherTree = MCTSTreeGenerator.generateTree(gameFromFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+        assertThrows(IllegalStateException.class, () -> mcts.search(otherTree, SearchLimits.simulations(10), new CancellationToken()));
+
+        interrupted.cancel(true);
+        assertTrue(interrupted.isCancelled());
+        assertNotNull(interrupted.getBestMoveSoFar());
+        assertNotNull(mcts.getBestMoveSoFar());
+    }
+
+    @Test
+    void testSearchStopsEarlyWithSingleLegalMove()
+    {
+        System.out.println("TEST: Early stop");
+        // The rook on h2 cuts off the second rank, so the white king can only go to b1
+        Game game = gameFromFEN("k7/8/8/8/8/8/7r/K7 w - - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+
+        String move = new MonteCarloTreeSearch().search(tree, SearchLimits.simulations(10_000), new CancellationToken());
+
+        assertEquals("Kb1", move);
+        assertTrue(tree.getRoot().getValue().getVisits() < 10_000);
+    }
+
+    @Test
+    void testTranspositionsShareStatistics()
+    {
+        System.out.println("TEST: Transpositions");
+        String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+        // The double pawn push cannot be captured en passant, so both move orders hash the same
+        Game first = gameFromFEN(start);
+        for (String move : new String[]{"e4", "e5", "Nf3"}) assertTrue(first.makeValidMove(move));
+        Game second = gameFromFEN(start);
+        for (String move : new String[]{"Nf3", "e5", "e4"}) assertTrue(second.makeValidMove(move));
+        assertEquals(first.getPositionHash(), second.getPositionHash());
+
+        // Knights going out and back is the starting position again; the other side to move is not
+        Game third = gameFromFEN(start);
+        for (String move : new String[]{"Nf3", "Nf6", "Ng1", "Ng8"}) assertTrue(third.makeValidMove(move));
+        assertEquals(gameFromFEN(start).getPositionHash(), third.getPositionHash());
+        assertNotEquals(third.getPositionHash(), gameFromFEN(start.replace(" w ", " b ")).getPositionHash());
+
+        // Nodes of one tree reached by transposed move orders share one statistics object
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(gameFromFEN("4k3/7p/8/8/8/8/P7/4K3 w - - 0 1"));
+        mcts.runSimulations(tree, 2000);
+
+        Map<Long, TreeNode<MCTSData>> firstSeen = new HashMap<>();
+        int shared = 0;
+        for (TreeNode<MCTSData> node : tree.preOrder())
+        {
+            TreeNode<MCTSData> other = firstSeen.putIfAbsent(node.getValue().getState().getPositionHash(), node);
+            if (other != null && other.getValue().getStatistics() == node.getValue().getStatistics()) shared++;
+        }
+        System.out.println("Nodes: " + tree.size() + " | sharing statistics with a transposition: " + shared);
+        assertTrue(shared > 0);
+    }
+
+    @Test
+    void testTranspositionTableFollowsTree()
+    {
+        System.out.println("TEST: Transposition table lifetime");
+        String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+
+        // A new tree for the same position starts from empty statistics, not the previous tree's
+        mcts.runSimulations(MCTSTreeGenerator.generateTree(gameFromFEN(start)), 300);
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(gameFromFEN(start));
+        mcts.runSimulations(tree, 1);
+
+        int childVisits = 0;
+        for (TreeNode<MCTSData> child : tree.getRoot().getChildren().asIterable()) childVisits += child.getValue().getVisits();
+        assertEquals(1, tree.getRoot().getValue().getVisits());
+        assertTrue(childVisits <= 1);
+
+        // Advancing the root keeps only the positions of the subtree that is still reachable
+        mcts.runSimulations(tree, 300);
+        mcts.advanceRoot(tree, "e4");
+        System.out.println("Tree nodes: " + tree.size() + " | table entries: " + mcts.getTranspositionTable().size());
+        assertTrue(mcts.getTranspositionTable().size() <= tree.size());
+
+        // The table never holds more entries than it has slots
+        TranspositionTable small = new TranspositionTable(12);
+        assertEquals(16, small.capacity());
+        mcts.setTranspositionTable(small);
+        mcts.runSimulations(tree, 300);
+        assertTrue(small.size() <= 16);
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+
+    @Test
+    void testSolverProvesMateInOne()
+    {
+        System.out.println("TEST: MCTS-Solver");
+        // Ra8 is mate: the black king is boxed in by its own pawns
+        Game game = gameFromFEN("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+
+        String move = mcts.search(tree, SearchLimits.simulations(100_000), new CancellationToken());
+        MCTSData mate = findChild(tree, "Ra8");
+
+        System.out.println("Best move: " + move + " after " + tree.getRoot().getValue().getVisits() + " simulations");
+
+        assertEquals("Ra8", move);
+        assertEquals("Ra8", mcts.getRankedMoves(tree).get(0));
+        assertNotNull(mate);
+        assertEquals(ProvenResult.WIN, mate.getProvenResult());
+        // Black moved into the root position, and has lost it
+        assertEquals(ProvenResult.LOSS, tree.getRoot().getValue().getProvenResult());
+        assertTrue(tree.getRoot().getValue().getVisits() < 100_000);
+    }
+
+    @Test
+    void testPUCTExpandsLikelyMovesFirst()
+    {
+        System.out.println("TEST: PUCT selection");
+        // The rook can take the undefended queen
+        Game game = gameFromFEN("3q3k/8/8/8/8/8/8/K2R4 w - - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        mcts.setSelectionPolicy(SelectionPolicy.PUCT);
+        assertEquals(SelectionPolicy.PUCT.getDefaultExploration(), mcts.getExplorationConstant());
+        assertThrows(IllegalArgumentException.class, () -> mcts.setExplorationConstant(-1));
+
+        // The capture has the highest prior, so it is the first move expanded
+        mcts.runSimulations(tree, 1);
+        assertEquals(1, tree.getRoot().getChildren().size());
+        MCTSData capture = findChild(tree, "Rxd8");
+        assertNotNull(capture);
+
+        MCTSData rootData = tree.getRoot().getValue();
+        float priorSum = capture.getPrior();
+        for (int i = 0; i < rootData.getUntriedMoveCount(); i++)
+        {
+            assertTrue(rootData.getUntriedPrior(i) < capture.getPrior());
+            priorSum += rootData.getUntriedPrior(i);
+        }
+        assertEquals(1.0, priorSum, 1e-4);
+
+        String move = mcts.findBestMove(tree, 300);
+        System.out.println("Best move: " + move + " with " + tree.getRoot().getChildren().size() + " of "
+                + (tree.getRoot().getChildren().size() + rootData.getUntriedMoveCount()) + " root moves expanded");
+
+        assertEquals("Rxd8", move);
+    }
+
+    @Test
+    void testTreeSizeIsCappedByPruning()
+    {
+        System.out.println("TEST: Node cap");
+        Game game = gameFromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        assertThrows(IllegalArgumentException.class, () -> mcts.setMaxTreeNodes(1));
+        mcts.setMaxTreeNodes(300);
+
+        for (int i = 0; i < 20; i++)
+        {
+            mcts.runSimulations(tree, 100);
+            assertTrue(mcts.getNodeCount(tree) <= 300);
+        }
+
+        System.out.println("Nodes: " + mcts.getNodeCount(tree) + " | estimated bytes: " + mcts.estimateMemoryBytes(tree));
+
+        assertEquals(countNodes(tree.getRoot()), mcts.getNodeCount(tree));
+        assertTrue(mcts.getTranspositionTable().size() <= 300);
+        assertEquals(2000, tree.getRoot().getValue().getVisits());
+
+        // Pruned moves go back to their parent's untried list, so no move is lost
+        for (TreeNode<MCTSData> child : tree.getRoot().getChildren().asIterable())
+        {
+            MCTSData data = child.getValue();
+            if (!data.hasGeneratedMoves()) continue;
+
+            Game state = data.getState();
+            int legalMoves = state.getBoard().generateAllLegalMoveBoards(state.getCurrentTurn()).size();
+            assertEquals(legalMoves, child.getChildren().size() + data.getUntriedMoveCount());
+        }
+    }
+
+    private MCTSData findChild(Tree<MCTSData> tree, String moveSAN)
+    {
+        for (TreeNode<MCTSData> child : tree.getRoot().getChildren().asIterable())
+        {
+            if (moveSAN.equals(child.getValue().getMove())) return child.getValue();
+        }
+        return null;
+    }
+}
@@ -2,10 +2,40 @@ package project.chess;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import project.chess.datastructure.Tree;
+import project.chess.model.Chessboard;
+import project.chess.model.ChessboardPool;
 import project.chess.model.Game;
+import project.chess.model.IFeatureAccumulator;
+import project.chess.mcts.EvaluationCache;
+import project.chess.mcts.EvaluationStage;
 import project.chess.mcts.HeuristicEvaluator;
+import project.chess.mcts.INetworkKernels;
+import project.chess.mcts.MCTSData;
+import project.chess.mcts.MCTSTreeGenerator;
+import project.chess.mcts.MonteCarloTreeSearch;
+import project.chess.mcts.NetworkAccumulator;
+import project.chess.mcts.NetworkEvaluator;
+import project.chess.mcts.NetworkWeights;
+import project.chess.mcts.PawnHashTable;
+import project.chess.mcts.PawnStructure;
+import project.chess.mcts.RolloutPolicy;
+import project.chess.mcts.ScalarNetworkKernels;
+import project.chess.mcts.StagedEvaluation;
+import project.chess.model.BoardUtils;
+import project.chess.model.Move;
+import project.chess.model.PieceSquareTables;
+import project.chess.model.PieceType;
 import project.chess.piece.Piece;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 @SpringBootTest
 public class MCTSSimulationTests {
 
@@ -98,4 +128,485 @@ public class MCTSSimulationTests {
         String fen = "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N w - - 0 1";
         stepThroughSimulation(fen, Piece.Colour.WHITE);
     }
+
+    @Test
+    void test6RolloutPolicyFeatures() {
+        // White can capture the queen with the rook, push the pawn to promote, or make a quiet king move
+        Game game = new Game();
+        game.importFEN("3q3k/P7/8/8/8/8/8/K2R4 w - - 0 1");
+        var board = game.getBoard();
+
+        int captureQueen = Move.encode(BoardUtils.toIndex("d1"), BoardUtils.toIndex("d8"));
+        int promote = Move.encode(BoardUtils.toIndex("a7"), BoardUtils.toIndex("a8"), PieceType.QUEEN);
+        int underpromote = Move.encode(BoardUtils.toIndex("a7"), BoardUtils.toIndex("a8"), PieceType.KNIGHT);
+        int quiet = Move.encode(BoardUtils.toIndex("a1"), BoardUtils.toIndex("b1"));
+
+        assertEquals("Rxd8", board.toSAN(captureQueen));
+        assertEquals("a8=Q", board.toSAN(promote));
+        assertEquals("d1d8", Move.toUCI(captureQueen));
+        assertEquals("a7a8n", Move.toUCI(underpromote));
+
+        double captureScore = RolloutPolicy.scoreMove(board, captureQueen);
+        double promoteScore = RolloutPolicy.scoreMove(board, promote);
+        double quietScore = RolloutPolicy.scoreMove(board, quiet);
+        System.out.printf("Capture: %.2f | Promote: %.2f | Quiet: %.2f%n", captureScore, promoteScore, quietScore);
+
+        assertTrue(captureScore > promoteScore);
+        assertTrue(promoteScore > RolloutPolicy.scoreMove(board, underpromote));
+        assertTrue(RolloutPolicy.scoreMove(board, underpromote) > quietScore);
+
+        // A rollout step always returns a legal successor position
+        var next = new RolloutPolicy(1.0).playMove(board, Piece.Colour.WHITE, new Random(1));
+        assertNotNull(next);
+        assertFalse(next.isInCheck(Piece.Colour.WHITE));
+    }
+
+    @Test
+    void test7EvaluationCache() throws Exception {
+        Game game = new Game();
+        game.importFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        var boards = game.getBoard().generateAllLegalMoveBoards(Piece.Colour.WHITE);
+
+        HeuristicEvaluator uncached = new HeuristicEvaluator();
+        EvaluationCache cache = new EvaluationCache(1 << 12);
+
+        // Several threads share one cache and must all see the uncached scores
+        Thread[] threads = new Thread[4];
+        AtomicInteger mismatches = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                HeuristicEvaluator cached = new HeuristicEvaluator(cache);
+                for (int repeat = 0; repeat < 3; repeat++) {
+                    for (var move : boards) {
+                        for (Piece.Colour colour : Piece.Colour.values()) {
+                            if (cached.evaluate(move.getValue(), colour) != uncached.evaluate(move.getValue(), colour)) {
+                                mismatches.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        System.out.printf("Cache hits: %d | misses: %d | hit rate: %.2f%n",
+                cache.getHits(), cache.getMisses(), cache.getHitRate());
+
+        assertEquals(0, mismatches.get());
+        assertTrue(cache.getHits() > cache.getMisses());
+        assertTrue(cache.getMisses() >= boards.size() * 2);
+    }
+
+    @Test
+    void test8BatchEvaluation() {
+        Game game = new Game();
+        game.importFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Chessboard board = game.getBoard();
+        HeuristicEvaluator evaluator = new HeuristicEvaluator();
+
+        // A batch of positions, each scored from alternating points of view
+        var legalMoves = board.generateAllLegalMoveBoards(Piece.Colour.WHITE);
+        Chessboard[] boards = new Chessboard[legalMoves.size()];
+        Piece.Colour[] colours = new Piece.Colour[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = legalMoves.get(i).getValue();
+            colours[i] = (i % 2 == 0) ? Piece.Colour.WHITE : Piece.Colour.BLACK;
+        }
+
+        double[] scores = evaluator.evaluateBatch(boards, colours);
+        for (int i = 0; i < boards.length; i++) {
+            assertEquals(evaluator.evaluate(boards[i], colours[i]), scores[i]);
+        }
+
+        // A lopsided board in the batch stops after the material pass, and the others still get every term
+        Game lopsided = new Game();
+        lopsided.importFEN("4k3/8/8/8/8/8/8/QQQQK3 w - - 0 1");
+        Chessboard[] mixed = Arrays.copyOf(boards, boards.length + 1);
+        mixed[boards.length] = lopsided.getBoard();
+        Piece.Colour[] mixedColours = Arrays.copyOf(colours, mixed.length);
+        mixedColours[boards.length] = Piece.Colour.BLACK;
+
+        HeuristicEvaluator batched = new HeuristicEvaluator();
+        HeuristicEvaluator single = new HeuristicEvaluator();
+        double[] mixedScores = batched.evaluateBatch(mixed, mixedColours);
+        for (int i = 0; i < mixed.length; i++) {
+            assertEquals(single.evaluate(mixed[i], mixedColours[i]), mixedScores[i]);
+        }
+        for (EvaluationStage stage : EvaluationStage.values()) {
+            assertEquals(single.getStageCount(stage), batched.getStageCount(stage));
+        }
+        assertTrue(batched.getStageCount(EvaluationStage.MATERIAL) > 0);
+        assertTrue(batched.getStageCount(EvaluationStage.FULL) > 0);
+        assertEquals(mixed.length, batched.getStageCount(EvaluationStage.MATERIAL) + batched.getStageCount(EvaluationStage.FULL));
+
+        // A position plus its candidate moves
+        int[] moves = Arrays.stream(board.generateAllPseudolegalMoves(Piece.Colour.WHITE)).filter(board::isLegalMove).toArray();
+        double[] moveScores = evaluator.evaluateMoves(board, moves, Piece.Colour.WHITE);
+        for (int i = 0; i < moves.length; i++) {
+            assertEquals(evaluator.evaluate(board.copyWithMove(moves[i]), Piece.Colour.WHITE), moveScores[i]);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluateBatch(boards, new Piece.Colour[1]));
+
+        // Batched leaf evaluation still counts every simulation exactly once
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        mcts.setLeafBatchSize(8);
+
+        long start = System.nanoTime();
+        mcts.runSimulations(tree, 100);
+        System.out.printf("100 simulations in batches of 8: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+
+        assertEquals(100, tree.getRoot().getValue().getVisits());
+        int childVisits = 0;
+        for (var child : tree.getRoot().getChildren().asIterable()) childVisits += child.getValue().getVisits();
+        assertEquals(100, childVisits);
+    }
+
+    @Test
+    void test9IncrementalMaterialScore() {
+        // The starting position is symmetric, so it scores level
+        Game start = new Game();
+        start.importFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        assertEquals(0, start.getBoard().getMaterialScore());
+        assertEquals(PieceSquareTables.MAX_PHASE, start.getBoard().getPhase());
+
+        // A white pawn is worth more the closer it is to promoting (rank 1 is square 0, see BoardUtils)
+        Game advanced = new Game();
+        advanced.importFEN("4k3/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        Game home = new Game();
+        home.importFEN("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1");
+        assertTrue(advanced.getBoard().getMaterialScore() > home.getBoard().getMaterialScore());
+
+        // After a random game, the incremental terms match a full recount
+        Game game = new Game();
+        game.importFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Random random = new Random(7);
+
+        for (int ply = 0; ply < 60 && !game.isGameOver(); ply++) {
+            var moves = game.getBoard().generateAllLegalMoveBoards(game.getCurrentTurn());
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+
+            Chessboard board = game.getBoard();
+            int midgame = 0, endgame = 0, phase = 0;
+            for (int square = 0; square < Chessboard.BOARD_SIZE; square++) {
+                Piece piece = board.getPiece(square);
+                if (piece == null) continue;
+
+                int sign = (piece.getColour() == Piece.Colour.WHITE) ? 1 : -1;
+                midgame += sign * PieceSquareTables.midgameValue(piece.getType(), piece.getColour(), square);
+                endgame += sign * PieceSquareTables.endgameValue(piece.getType(), piece.getColour(), square);
+                phase += PieceSquareTables.phaseWeight(piece.getType());
+            }
+
+            assertEquals(midgame, board.getMidgameScore());
+            assertEquals(endgame, board.getEndgameScore());
+            assertEquals(phase, board.getPhase());
+        }
+
+        System.out.println("Final position: " + game.getBoard().getMaterialScore() + " centipawns, phase " + game.getBoard().getPhase());
+    }
+
+    @Test
+    void test10AttackCountMobility() {
+        Game game = new Game();
+        game.importFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Chessboard board = game.getBoard();
+
+        // Without exclusions, the count matches the pseudo-legal targets of every knight, bishop, rook and queen
+        for (int square = 0; square < Chessboard.BOARD_SIZE; square++) {
+            Piece piece = board.getPiece(square);
+            if (piece == null) continue;
+
+            int expected = (piece.getType() == PieceType.PAWN || piece.getType() == PieceType.KING)
+                    ? 0
+                    : piece.generateMoves(square, board).size();
+            assertEquals(expected, piece.countMobility(square, board, 0L), piece + " on " + BoardUtils.toCoordinate(square));
+        }
+
+        // The black pawn on d7 guards c6, which the white knight on e5 then no longer counts
+        long blackPawnAttacks = board.getPawnAttacks(Piece.Colour.BLACK);
+        assertTrue((blackPawnAttacks & (1L << BoardUtils.toIndex("c6"))) != 0);
+        assertTrue((blackPawnAttacks & (1L << BoardUtils.toIndex("a3"))) != 0);
+        Piece knight = board.getPiece(BoardUtils.toIndex("e5"));
+        assertEquals(knight.countMobility(BoardUtils.toIndex("e5"), board, 0L) - 2,
+                knight.countMobility(BoardUtils.toIndex("e5"), board, blackPawnAttacks));
+
+        HeuristicEvaluator evaluator = new HeuristicEvaluator();
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) evaluator.evaluate(board, Piece.Colour.WHITE);
+        System.out.printf("1000 evaluations: %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void test11StagedEvaluation() {
+        HeuristicEvaluator evaluator = new HeuristicEvaluator(new EvaluationCache(1 << 10));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.setLazyMargin(-1));
+
+        // White is a queen up: the cheap stage already decides the position
+        Game lopsided = new Game();
+        lopsided.importFEN("4k3/pppp4/8/8/8/8/PPPP4/3QK3 w - - 0 1");
+        StagedEvaluation winning = evaluator.evaluateStaged(lopsided.getBoard(), Piece.Colour.WHITE);
+        assertEquals(EvaluationStage.MATERIAL, winning.getStage());
+        assertEquals(lopsided.getBoard().getMaterialScore() / 100.0, winning.getScore());
+
+        // A level position needs every term, and is served from the cache the second time
+        Game level = new Game();
+        level.importFEN("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        assertEquals(EvaluationStage.FULL, evaluator.evaluateStaged(level.getBoard(), Piece.Colour.BLACK).getStage());
+        assertEquals(EvaluationStage.CACHED, evaluator.evaluateStaged(level.getBoard(), Piece.Colour.BLACK).getStage());
+
+        // Without a margin, the lopsided position is fully evaluated too
+        HeuristicEvaluator full = new HeuristicEvaluator();
+        full.setLazyMargin(Double.POSITIVE_INFINITY);
+        assertEquals(EvaluationStage.FULL, full.evaluateStaged(lopsided.getBoard(), Piece.Colour.WHITE).getStage());
+
+        System.out.println("Stages: material " + evaluator.getStageCount(EvaluationStage.MATERIAL)
+                + " | full " + evaluator.getStageCount(EvaluationStage.FULL)
+                + " | cached " + evaluator.getStageCount(EvaluationStage.CACHED));
+        assertEquals(1, evaluator.getStageCount(EvaluationStage.MATERIAL));
+        assertEquals(1, evaluator.getStageCount(EvaluationStage.FULL));
+        assertEquals(1, evaluator.getStageCount(EvaluationStage.CACHED));
+
+        evaluator.resetStageCounts();
+        assertEquals(0, evaluator.getStageCount(EvaluationStage.FULL));
+    }
+
+    @Test
+    void test12PawnStructure() throws Exception {
+        // Doubled and isolated a-pawns, an isolated passed d-pawn
+        Game isolated = new Game();
+        isolated.importFEN("4k3/8/8/3P4/8/P7/P7/4K3 w - - 0 1");
+        assertEquals(-0.15 - 3 * 0.15 + 0.05 + 0.1 + 0.35, analyse(isolated.getBoard()).getScore(), 1e-9);
+
+        // d3 is backward (e5 guards d4), c4, g2 and h2 are passed, and the black e-pawn is isolated
+        Game backward = new Game();
+        backward.importFEN("4k3/8/8/4p3/2P1P3/3P4/5PPP/6K1 w - - 0 1");
+        PawnStructure structure = analyse(backward.getBoard());
+        assertEquals(0.2 + 0.05 + 0.05 - 0.1 + 0.15, structure.getScore(), 1e-9);
+        assertEquals(0.3, structure.kingShield(Piece.Colour.WHITE, BoardUtils.toIndex("g1")), 1e-9);
+        assertEquals(0, structure.kingShield(Piece.Colour.BLACK, BoardUtils.toIndex("e8")), 1e-9);
+
+        // The pawn hash follows pawn moves only, and sibling positions mostly share a structure
+        Game game = new Game();
+        game.importFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        HeuristicEvaluator evaluator = new HeuristicEvaluator();
+        evaluator.setLazyMargin(Double.POSITIVE_INFINITY);
+        Random random = new Random(11);
+
+        for (int ply = 0; ply < 40 && !game.isGameOver(); ply++) {
+            var moves = game.getBoard().generateAllLegalMoveBoards(game.getCurrentTurn());
+            for (var move : moves) evaluator.evaluate(move.getValue(), game.getCurrentTurn());
+
+            var chosen = moves.get(random.nextInt(moves.size()));
+            boolean pawnsChanged = game.getBoard().getPawns(Piece.Colour.WHITE) != chosen.getValue().getPawns(Piece.Colour.WHITE)
+                    || game.getBoard().getPawns(Piece.Colour.BLACK) != chosen.getValue().getPawns(Piece.Colour.BLACK);
+            assertEquals(pawnsChanged, game.getBoard().getPawnHash() != chosen.getValue().getPawnHash());
+            game.makeMove(chosen);
+        }
+
+        PawnHashTable table = evaluator.getPawnTable();
+        System.out.printf("Pawn table hits: %d | misses: %d | hit rate: %.3f%n", table.getHits(), table.getMisses(), table.getHitRate());
+        assertTrue(table.getHitRate() > 0.8);
+
+        // One evaluator shared by several threads gives the single-threaded scores and counts every lookup
+        var boards = game.getBoard().generateAllLegalMoveBoards(game.getCurrentTurn());
+        long lookups = table.getHits() + table.getMisses();
+        for (var move : boards) evaluator.evaluate(move.getValue(), Piece.Colour.WHITE);
+        long lookupsPerPass = table.getHits() + table.getMisses() - lookups;
+
+        HeuristicEvaluator shared = new HeuristicEvaluator();
+        shared.setLazyMargin(Double.POSITIVE_INFINITY);
+        Thread[] threads = new Thread[4];
+        AtomicInteger mismatches = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (var move : boards) {
+                    if (shared.evaluate(move.getValue(), Piece.Colour.WHITE) != evaluator.evaluate(move.getValue(), Piece.Colour.WHITE)) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(0, mismatches.get());
+        assertEquals(threads.length * lookupsPerPass, shared.getPawnTable().getHits() + shared.getPawnTable().getMisses());
+    }
+
+    @Test
+    void test13NetworkEvaluator() throws Exception {
+        // A hidden size that is not a multiple of the vector width, so the scalar tail is exercised too
+        NetworkWeights weights = NetworkWeights.random(40, 5);
+        Path file = Files.createTempFile("network", ".bin");
+        weights.save(file);
+        NetworkWeights loaded = NetworkWeights.load(file);
+        Files.write(file, new byte[] { 1, 2, 3, 4 });
+        assertThrows(IllegalArgumentException.class, () -> NetworkWeights.load(file));
+        Files.delete(file);
+
+        NetworkEvaluator evaluator = new NetworkEvaluator(loaded);
+        NetworkEvaluator scalar = new NetworkEvaluator(loaded, new ScalarNetworkKernels());
+        NetworkEvaluator original = new NetworkEvaluator(weights, new ScalarNetworkKernels());
+        System.out.println("Network evaluator vectorized: " + evaluator.isVectorized());
+        assertEquals(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), evaluator.isVectorized());
+
+        // Whichever kernels the JVM supports compute exactly what the scalar ones do (on 8-bit weights, as the dot
+        // product expects of output weights)
+        INetworkKernels kernels = NetworkEvaluator.defaultKernels();
+        INetworkKernels scalarKernels = new ScalarNetworkKernels();
+        Random kernelRandom = new Random(40);
+        short[] kernelWeights = new short[3 * 37];
+        for (int i = 0; i < kernelWeights.length; i++) kernelWeights[i] = (short) (kernelRandom.nextInt(255) - 127);
+
+        short[] values = new short[37];
+        short[] scalarValues = new short[37];
+        for (int offset = 0; offset < kernelWeights.length; offset += values.length) {
+            kernels.add(values, kernelWeights, offset);
+            scalarKernels.add(scalarValues, kernelWeights, offset);
+            assertArrayEquals(scalarValues, values);
+            assertEquals(scalarKernels.clampedDot(scalarValues, kernelWeights, offset, NetworkWeights.QA),
+                    kernels.clampedDot(values, kernelWeights, offset, NetworkWeights.QA));
+        }
+        kernels.subtract(values, kernelWeights, 0);
+        scalarKernels.subtract(scalarValues, kernelWeights, 0);
+        assertArrayEquals(scalarValues, values);
+
+        // The start position is symmetric, so both sides see the same hidden layer
+        Game start = new Game();
+        start.importFEN("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        assertEquals(evaluator.evaluate(start.getBoard(), Piece.Colour.WHITE), evaluator.evaluate(start.getBoard(), Piece.Colour.BLACK));
+
+        // Evaluating leaves the board as it is; only prepare attaches an accumulator
+        assertNull(start.getBoard().getAccumulator());
+
+        // The accumulator follows every move, including captures, castling and promotions
+        Game game = new Game();
+        game.importFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        evaluator.prepare(game.getBoard());
+        Random random = new Random(13);
+
+        assertInstanceOf(NetworkAccumulator.class, game.getBoard().getAccumulator());
+
+        for (int ply = 0; ply < 60 && !game.isGameOver(); ply++) {
+            Chessboard board = game.getBoard();
+            Chessboard fresh = new Chessboard(board);
+            fresh.attachAccumulator(new NetworkAccumulator(loaded, new ScalarNetworkKernels()));
+
+            for (Piece.Colour colour : Piece.Colour.values()) {
+                double score = evaluator.evaluate(board, colour);
+                assertEquals(scalar.evaluate(fresh, colour), score);
+                assertEquals(original.evaluate(new Chessboard(board), colour), score);
+            }
+
+            var moves = board.generateAllLegalMoveBoards(game.getCurrentTurn());
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+
+        // The search can use it in place of the heuristic evaluator
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(start);
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        mcts.setEvaluator(evaluator);
+        mcts.runSimulations(tree, 50);
+        assertEquals(50, tree.getRoot().getValue().getVisits());
+    }
+
+    @Test
+    void test14ChessboardPool() {
+        ChessboardPool pool = ChessboardPool.get();
+        pool.assertNoLeaks();
+
+        // A recycled board holding another position is fully overwritten by copyFrom
+        Game game = new Game();
+        game.importFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Chessboard board = game.getBoard();
+
+        Chessboard scratch = pool.acquire();
+        scratch.copyFrom(new Game(game).getBoard().copyWithMove(board.generateAllPseudolegalMoves(Piece.Colour.WHITE)[0]));
+        scratch.copyFrom(board);
+        assertEquals(board.getZobristHash(), scratch.getZobristHash());
+        assertEquals(board.toBasicFEN(), scratch.toBasicFEN());
+        assertEquals(board.castlingRights, scratch.castlingRights);
+        assertEquals(1, pool.getOutstanding());
+        assertThrows(IllegalStateException.class, pool::assertNoLeaks);
+
+        // The copy's accumulator is reused when it belongs to the same network, and replaced otherwise
+        NetworkEvaluator network = new NetworkEvaluator(NetworkWeights.random(16, 47));
+        Chessboard prepared = new Chessboard(board);
+        network.prepare(prepared);
+        scratch.copyFrom(prepared);
+        IFeatureAccumulator reused = scratch.getAccumulator();
+        scratch.copyFrom(prepared.copyWithMove(board.generateAllPseudolegalMoves(Piece.Colour.WHITE)[0]));
+        scratch.copyFrom(prepared);
+        assertSame(reused, scratch.getAccumulator());
+        assertNotSame(prepared.getAccumulator(), scratch.getAccumulator());
+        assertEquals(network.evaluate(prepared, Piece.Colour.WHITE), network.evaluate(scratch, Piece.Colour.WHITE));
+
+        Chessboard otherNetwork = new Chessboard(board);
+        new NetworkEvaluator(NetworkWeights.random(16, 48)).prepare(otherNetwork);
+        scratch.copyFrom(otherNetwork);
+        assertNotSame(reused, scratch.getAccumulator());
+        scratch.copyFrom(board);
+        assertNull(scratch.getAccumulator());
+
+        // Boards used only for legality tests leave the accumulator out, so it is never copied or updated
+        int[] updates = new int[1];
+        Chessboard counted = new Chessboard(board);
+        counted.attachAccumulator(new IFeatureAccumulator() {
+            public void reset() {}
+            public void addPiece(Piece piece, int square) { updates[0]++; }
+            public void removePiece(Piece piece, int square) { updates[0]++; }
+            public IFeatureAccumulator copy() { return this; }
+        });
+        updates[0] = 0;
+        for (int move : counted.generateAllPseudolegalMoves(Piece.Colour.WHITE)) counted.isLegalMove(move);
+        assertEquals(0, updates[0]);
+
+        Chessboard legalityBoard = pool.acquireCopyWithoutAccumulator(counted);
+        assertNull(legalityBoard.getAccumulator());
+        pool.release(legalityBoard);
+
+        pool.release(scratch);
+        pool.assertNoLeaks();
+        assertThrows(IllegalArgumentException.class, () -> pool.release(scratch));
+        assertThrows(IllegalArgumentException.class, () -> pool.release(new Chessboard(board)));
+
+        // Legality checks and rollouts hand every board back
+        long reusesBefore = pool.getReuses();
+        assertEquals(48, Arrays.stream(board.generateAllPseudolegalMoves(Piece.Colour.WHITE)).filter(board::isLegalMove).count());
+
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+        mcts.runSimulations(tree, 100);
+        mcts.setLeafBatchSize(8);
+        mcts.runSimulations(tree, 100);
+
+        pool.assertNoLeaks();
+        System.out.println("Pooled boards: " + pool.getPooledCount() + " | allocated: " + pool.getAllocations()
+                + " | reused: " + (pool.getReuses() - reusesBefore));
+        assertTrue(pool.getReuses() - reusesBefore > 100 * pool.getPooledCount());
+    }
+
+    @Test
+    void test15FiftyMoveRuleInRollouts() {
+        // Two knights cannot capture or mate here, so every line hits the fifty-move rule within two plies,
+        // even though White is far ahead on material
+        Game game = new Game();
+        game.importFEN("8/8/8/4k3/8/8/8/KNN5 w - - 98 80");
+        Tree<MCTSData> tree = MCTSTreeGenerator.generateTree(game);
+
+        MonteCarloTreeSearch mcts = new MonteCarloTreeSearch();
+        mcts.runSimulations(tree, 200);
+
+        MCTSData root = tree.getRoot().getValue();
+        System.out.printf("Root visits: %d | wins: %.1f%n", root.getVisits(), root.getWins());
+        assertEquals(200, root.getVisits());
+        assertEquals(100.0, root.getWins(), 1e-9);
+    }
+
+    private PawnStructure analyse(Chessboard board) {
+        return PawnStructure.analyse(board.getPawns(Piece.Colour.WHITE), board.getPawns(Piece.Colour.BLACK));
+    }
 }